@@ -49,6 +49,16 @@ public interface IMIMLClassifier extends MultiLabelLearner, Serializable {
 	 */
 	public void build(MIMLInstances trainingSet) throws Exception;
 
+	/**
+	 * Makes a prediction for all bags of a dataset. Labels of the bags are not
+	 * used to make the predictions.
+	 *
+	 * @param data The dataset to be predicted.
+	 * @return The prediction for each bag of the dataset.
+	 * @throws Exception If an error occurs while making the predictions.
+	 */
+	public MIMLPredictions makePredictions(MIMLInstances data) throws Exception;
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -151,9 +151,62 @@ public abstract class MIMLClassifier implements IConfiguration, IMIMLClassifier
 			throw new ModelInitializationException("The model has not been trained.");
 		}
 
-		instance.setValue(labelIndices[labelIndices.length - 1], 1);
+		// The label is set on a copy so the instance of the caller is not modified
+		MIMLBag bag = new MIMLBag(instance);
+		bag.setValue(labelIndices[labelIndices.length - 1], 1);
 
-		return makePredictionInternal(new MIMLBag(instance));
+		return makePredictionInternal(bag);
+	}
+
+	/**
+	 * Makes a prediction for all bags of a dataset. By default, bags are predicted
+	 * one by one with {@link #makePrediction(Instance)} once their labels have been
+	 * set as missing. Classifiers that can take advantage of predicting all bags at
+	 * once should override this method.
+	 *
+	 * @param data The dataset to be predicted.
+	 * @return The prediction for each bag of the dataset.
+	 * @throws Exception If an error occurs while making the predictions.
+	 */
+	@Override
+	public MIMLPredictions makePredictions(MIMLInstances data) throws Exception {
+		if (data == null) {
+			throw new ArgumentNullException("data");
+		}
+		if (!isModelInitialized()) {
+			throw new ModelInitializationException("The model has not been trained.");
+		}
+
+		Instances unlabeled = withoutLabels(data).getDataSet();
+		int nBags = unlabeled.numInstances();
+		MIMLPredictions predictions = null;
+		for (int b = 0; b < nBags; b++) {
+			MultiLabelOutput prediction = makePrediction(unlabeled.instance(b));
+			if (predictions == null)
+				predictions = new MIMLPredictions(nBags, numLabels, prediction);
+			predictions.set(b, prediction);
+		}
+		return predictions == null ? new MIMLPredictions(0, numLabels, false, false) : predictions;
+	}
+
+	/**
+	 * Gets a copy of the bags of a dataset with their labels set as missing, as
+	 * done by mulan's Evaluator before predicting each instance. The relational
+	 * values of the bags are shared with the dataset.
+	 *
+	 * @param data The dataset.
+	 * @return The bags without labels.
+	 * @throws Exception If the copy can not be created.
+	 */
+	protected static MIMLInstances withoutLabels(MIMLInstances data) throws Exception {
+		Instances bags = new Instances(data.getDataSet());
+		int[] labels = data.getLabelIndices();
+		for (int b = 0; b < bags.numInstances(); b++) {
+			Instance bag = bags.instance(b);
+			for (int label : labels)
+				bag.setMissing(label);
+		}
+		return new MIMLInstances(bags, data.getLabelsMetaData());
 	}
 
 	/*
@@ -0,0 +1,260 @@
+/*    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 2 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program; if not, write to the Free Software
+ *    Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package miml.classifiers.miml;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+import mulan.classifier.MultiLabelOutput;
+
+/**
+ * Predictions of a classifier for all bags of a dataset. Bipartitions are
+ * packed as bits, numLabels bits per bag rounded up to 64-bit words, and
+ * confidences are stored in a flat numBags x numLabels matrix (row-major). As
+ * in mulan, the ranking of a bag is derived from its confidences, so it is not
+ * stored. Predictions that do not fit this layout (i.e. with pvalues or with a
+ * ranking but no confidences) are kept as {@link MultiLabelOutput}.
+ *
+ * @author Eva Gibaja
+ * @version 20261019
+ */
+public class MIMLPredictions implements Serializable {
+
+	/** For serialization. */
+	private static final long serialVersionUID = -2465410829163520379L;
+
+	/** The number of bags. */
+	protected int numBags;
+
+	/** The number of labels. */
+	protected int numLabels;
+
+	/** The number of 64-bit words used by the bipartition of each bag. */
+	protected int wordsPerBag;
+
+	/** Packed bipartitions or null if predictions have no bipartition. */
+	protected long[] bipartitions;
+
+	/** Confidence of bag b and label j in position b*numLabels+j or null. */
+	protected double[] confidences;
+
+	/** Predictions that do not fit the packed layout, allocated on demand. */
+	protected MultiLabelOutput[] outputs;
+
+	/**
+	 * Creates an empty set of predictions.
+	 *
+	 * @param numBags        The number of bags.
+	 * @param numLabels      The number of labels.
+	 * @param hasBipartition Whether predictions have a bipartition.
+	 * @param hasConfidences Whether predictions have confidences.
+	 */
+	public MIMLPredictions(int numBags, int numLabels, boolean hasBipartition, boolean hasConfidences) {
+		this.numBags = numBags;
+		this.numLabels = numLabels;
+		wordsPerBag = (numLabels + 63) / 64;
+		if (hasBipartition)
+			bipartitions = new long[numBags * wordsPerBag];
+		if (hasConfidences)
+			confidences = new double[numBags * numLabels];
+	}
+
+	/**
+	 * Creates an empty set of predictions with the layout of a given prediction.
+	 *
+	 * @param numBags   The number of bags.
+	 * @param numLabels The number of labels.
+	 * @param sample    A prediction whose layout is used.
+	 */
+	public MIMLPredictions(int numBags, int numLabels, MultiLabelOutput sample) {
+		this(numBags, numLabels, sample.hasBipartition(), sample.hasConfidences());
+	}
+
+	/**
+	 * Packs an array of predictions.
+	 *
+	 * @param predictions The prediction of each bag.
+	 * @param numLabels   The number of labels.
+	 * @return The packed predictions.
+	 */
+	public static MIMLPredictions fromOutputs(MultiLabelOutput[] predictions, int numLabels) {
+		if (predictions.length == 0)
+			return new MIMLPredictions(0, numLabels, false, false);
+
+		MIMLPredictions result = new MIMLPredictions(predictions.length, numLabels, predictions[0]);
+		for (int b = 0; b < predictions.length; b++)
+			result.set(b, predictions[b]);
+		return result;
+	}
+
+	/**
+	 * Sets the prediction of a bag. Bags can be set from different threads as
+	 * long as each bag is set by a single thread.
+	 *
+	 * @param bag        The index of the bag.
+	 * @param prediction The prediction.
+	 */
+	public void set(int bag, MultiLabelOutput prediction) {
+		if (prediction == null)
+			throw new IllegalArgumentException("The prediction of bag " + bag + " is null.");
+
+		if (!fitsLayout(prediction)) {
+			setOutput(bag, prediction);
+			return;
+		}
+
+		if (bipartitions != null) {
+			boolean[] bipartition = prediction.getBipartition();
+			int offset = bag * wordsPerBag;
+			Arrays.fill(bipartitions, offset, offset + wordsPerBag, 0L);
+			for (int j = 0; j < numLabels; j++) {
+				if (bipartition[j])
+					bipartitions[offset + (j >>> 6)] |= 1L << j;
+			}
+		}
+		if (confidences != null)
+			System.arraycopy(prediction.getConfidences(), 0, confidences, bag * numLabels, numLabels);
+	}
+
+	/**
+	 * Checks whether a prediction can be stored in the packed layout.
+	 *
+	 * @param prediction The prediction.
+	 * @return True if the prediction has the same components as this object.
+	 */
+	protected boolean fitsLayout(MultiLabelOutput prediction) {
+		if (prediction.hasPvalues())
+			return false;
+		if (prediction.hasBipartition() != (bipartitions != null))
+			return false;
+		if (prediction.hasConfidences() != (confidences != null))
+			return false;
+		// Without confidences the ranking can not be derived
+		return prediction.hasConfidences() || !prediction.hasRanking();
+	}
+
+	/**
+	 * Stores a prediction that does not fit the packed layout.
+	 *
+	 * @param bag        The index of the bag.
+	 * @param prediction The prediction.
+	 */
+	protected synchronized void setOutput(int bag, MultiLabelOutput prediction) {
+		if (outputs == null)
+			outputs = new MultiLabelOutput[numBags];
+		outputs[bag] = prediction;
+	}
+
+	/**
+	 * Gets the prediction of a bag as a {@link MultiLabelOutput}.
+	 *
+	 * @param bag The index of the bag.
+	 * @return The prediction.
+	 */
+	public MultiLabelOutput getOutput(int bag) {
+		if (outputs != null && outputs[bag] != null)
+			return outputs[bag];
+
+		if (bipartitions != null && confidences != null)
+			return new MultiLabelOutput(getBipartition(bag), getConfidences(bag));
+		if (bipartitions != null)
+			return new MultiLabelOutput(getBipartition(bag));
+		return new MultiLabelOutput(getConfidences(bag));
+	}
+
+	/**
+	 * Gets whether a label is relevant for a bag.
+	 *
+	 * @param bag   The index of the bag.
+	 * @param label The index of the label.
+	 * @return True if the label belongs to the bipartition of the bag.
+	 */
+	public boolean isRelevant(int bag, int label) {
+		if (outputs != null && outputs[bag] != null)
+			return outputs[bag].getBipartition()[label];
+		return (bipartitions[bag * wordsPerBag + (label >>> 6)] & (1L << label)) != 0;
+	}
+
+	/**
+	 * Gets the bipartition of a bag.
+	 *
+	 * @param bag The index of the bag.
+	 * @return The bipartition or null if predictions have no bipartition.
+	 */
+	public boolean[] getBipartition(int bag) {
+		if (outputs != null && outputs[bag] != null)
+			return outputs[bag].getBipartition();
+		if (bipartitions == null)
+			return null;
+
+		boolean[] bipartition = new boolean[numLabels];
+		for (int j = 0; j < numLabels; j++)
+			bipartition[j] = isRelevant(bag, j);
+		return bipartition;
+	}
+
+	/**
+	 * Gets the confidences of a bag.
+	 *
+	 * @param bag The index of the bag.
+	 * @return The confidences or null if predictions have no confidences.
+	 */
+	public double[] getConfidences(int bag) {
+		if (outputs != null && outputs[bag] != null)
+			return outputs[bag].getConfidences();
+		if (confidences == null)
+			return null;
+		return Arrays.copyOfRange(confidences, bag * numLabels, (bag + 1) * numLabels);
+	}
+
+	/**
+	 * Gets the number of bags.
+	 *
+	 * @return int
+	 */
+	public int getNumBags() {
+		return numBags;
+	}
+
+	/**
+	 * Gets the number of labels.
+	 *
+	 * @return int
+	 */
+	public int getNumLabels() {
+		return numLabels;
+	}
+
+	/**
+	 * Gets the packed bipartitions.
+	 *
+	 * @return An array with numLabels bits per bag rounded up to 64-bit words, or
+	 *         null if predictions have no bipartition.
+	 */
+	public long[] getBipartitions() {
+		return bipartitions;
+	}
+
+	/**
+	 * Gets the confidence matrix.
+	 *
+	 * @return A flat numBags x numLabels array (row-major) or null if predictions
+	 *         have no confidences.
+	 */
+	public double[] getConfidenceMatrix() {
+		return confidences;
+	}
+}
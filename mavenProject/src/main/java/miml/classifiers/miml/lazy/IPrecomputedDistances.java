@@ -0,0 +1,49 @@
+/*    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 2 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program; if not, write to the Free Software
+ *    Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package miml.classifiers.miml.lazy;
+
+import miml.core.distance.DistanceMatrix;
+import miml.core.distance.IDistance;
+
+/**
+ * Interface for classifiers based on the distances between bags that can be
+ * built from a precomputed {@link DistanceMatrix}. It allows an ensemble to
+ * compute the distances between training bags once and to share them among
+ * its members, each one built with a sample of the training bags.
+ *
+ * @author Eva Gibaja
+ * @version 20261019
+ */
+public interface IPrecomputedDistances {
+
+	/**
+	 * Gets the metric used by the classifier to measure the distance between bags.
+	 *
+	 * @return The metric.
+	 */
+	public IDistance getBagMetric();
+
+	/**
+	 * Sets the distances to be used in the next build of the classifier. The
+	 * training set must be a sample of the dataset of the matrix. The metric of the
+	 * classifier is initialized with the dataset of the matrix, so the distances to
+	 * new bags are consistent with the precomputed ones. The matrix is released
+	 * after building the classifier.
+	 *
+	 * @param distances The precomputed distances or null to compute them in the
+	 *                  build.
+	 */
+	public void setPrecomputedDistances(DistanceMatrix distances);
+}
@@ -16,6 +16,7 @@ package miml.classifiers.miml.lazy;
 
 import java.util.Enumeration;
 
+import miml.core.distance.DistanceMatrix;
 import miml.core.distance.IDistance;
 import miml.data.MIMLBag;
 import weka.core.Instance;
@@ -34,6 +35,12 @@ public class MIMLDistanceFunction extends NormalizableDistance {
 	/** Metric to measure distance between bags. */
 	protected IDistance metric;
 
+	/**
+	 * Precomputed distances between bags. If both bags belong to the matrix their
+	 * distance is not computed again.
+	 */
+	protected transient DistanceMatrix precomputed = null;
+
 	/**
 	 * Sets the metric to be used.
 	 * 
@@ -47,6 +54,26 @@ public class MIMLDistanceFunction extends NormalizableDistance {
 		return metric;
 	}
 
+	/**
+	 * Sets precomputed distances between bags. The metric is expected to be
+	 * initialized with the dataset of the matrix, so it is not initialized again
+	 * with the training set.
+	 * 
+	 * @param precomputed The precomputed distances or null to compute all of them.
+	 */
+	public void setPrecomputedDistances(DistanceMatrix precomputed) {
+		this.precomputed = precomputed;
+	}
+
+	/**
+	 * Gets the precomputed distances between bags.
+	 * 
+	 * @return The precomputed distances or null if there are not.
+	 */
+	public DistanceMatrix getPrecomputedDistances() {
+		return precomputed;
+	}
+
 	/**
 	 * Constructor that sets the metric to be used.
 	 * 
@@ -68,6 +95,13 @@ public class MIMLDistanceFunction extends NormalizableDistance {
 
 		double finalDistance = 0.0;
 
+		if (precomputed != null) {
+			int first = precomputed.indexOf(arg0);
+			int second = precomputed.indexOf(arg1);
+			if (first >= 0 && second >= 0)
+				return precomputed.distance(first, second);
+		}
+
 		try {
 
 			MIMLBag first = new MIMLBag(arg0);
@@ -144,6 +178,8 @@ public class MIMLDistanceFunction extends NormalizableDistance {
 	@Override
 	public void setInstances(Instances insts) {
 		// metric.setInstances(insts);
+		if (precomputed != null)
+			return;
 		try {
 			metric.setInstances(insts);
 		} catch (Exception e) {
@@ -22,6 +22,7 @@ import java.util.Set;
 import org.apache.commons.configuration2.Configuration;
 
 import miml.classifiers.miml.MIMLClassifier;
+import miml.core.distance.DistanceMatrix;
 import miml.core.distance.HausdorffDistance;
 import miml.core.distance.IDistance;
 import miml.data.MIMLBag;
@@ -44,7 +45,7 @@ import weka.core.matrix.SingularValueDecomposition;
  * @author Amelia Zafra
  * @version 20180608
  */
-public class MIMLkNN extends MIMLClassifier {
+public class MIMLkNN extends MIMLClassifier implements IPrecomputedDistances {
 
 	/** Generated Serial version UID. */
 	private static final long serialVersionUID = 1L;
@@ -79,6 +80,9 @@ public class MIMLkNN extends MIMLClassifier {
 	/** The phi matrix. */
 	protected double[][] phi_matrix;
 
+	/** Precomputed distances to be used in the next build. */
+	protected transient DistanceMatrix precomputed = null;
+
 	/**
 	 * Basic constructor to initialize the classifier.
 	 *
@@ -117,7 +121,10 @@ public class MIMLkNN extends MIMLClassifier {
 			throw new ArgumentNullException("trainingSet");
 		}
 
-		((HausdorffDistance) metric).setInstances(trainingSet);
+		if (precomputed != null)
+			((HausdorffDistance) metric).setInstances(precomputed.getData());
+		else
+			((HausdorffDistance) metric).setInstances(trainingSet);
 
 		this.dataset = trainingSet;
 		d_size = trainingSet.getNumBags();
@@ -141,7 +148,7 @@ public class MIMLkNN extends MIMLClassifier {
 		}
 
 		weights_matrix = getWeightsMatrix();
-
+		precomputed = null;
 	}
 
 	/*
@@ -210,6 +217,24 @@ public class MIMLkNN extends MIMLClassifier {
 		distance_matrix = new double[d_size][d_size];
 		double distance;
 
+		if (precomputed != null) {
+			// The training set is expected to be a sample of the bags of the
+			// precomputed matrix. Distances of bags out of it are computed.
+			int[] positions = new int[d_size];
+			for (int i = 0; i < d_size; ++i)
+				positions[i] = precomputed.indexOf(dataset.getDataSet().instance(i));
+
+			for (int i = 0; i < d_size; ++i) {
+				for (int j = 0; j < d_size; ++j) {
+					if (positions[i] >= 0 && positions[j] >= 0)
+						distance_matrix[i][j] = precomputed.distance(positions[i], positions[j]);
+					else
+						distance_matrix[i][j] = metric.distance(dataset.getBag(i), dataset.getBag(j));
+				}
+			}
+			return;
+		}
+
 		for (int i = 0; i < d_size; ++i) {
 
 			MIMLBag first = dataset.getBag(i);
@@ -481,6 +506,16 @@ public class MIMLkNN extends MIMLClassifier {
 		this.num_references = numReferences;
 	}
 
+	@Override
+	public IDistance getBagMetric() {
+		return metric;
+	}
+
+	@Override
+	public void setPrecomputedDistances(DistanceMatrix distances) {
+		this.precomputed = distances;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -17,6 +17,7 @@ package miml.classifiers.miml.lazy;
 import org.apache.commons.configuration2.Configuration;
 
 import miml.classifiers.miml.MIMLClassifier;
+import miml.core.distance.DistanceMatrix;
 import miml.core.distance.HausdorffDistance;
 import miml.core.distance.IDistance;
 import miml.data.MIMLBag;
@@ -27,7 +28,7 @@ import mulan.classifier.lazy.MultiLabelKNN;
 import weka.core.DistanceFunction;
 
 /** Wrapper for class MultiLabelKNN of Mulan to work with MIML data */
-public abstract class MultiInstanceMultiLabelKNN extends MIMLClassifier {
+public abstract class MultiInstanceMultiLabelKNN extends MIMLClassifier implements IPrecomputedDistances {
 
 	/**
 	 * For serialization.
@@ -101,10 +102,16 @@ public abstract class MultiInstanceMultiLabelKNN extends MIMLClassifier {
 			throw new Exception("The MultiLabelKNN classifier is null.");
 
 		IDistance m = metric.getMetric();
-		((HausdorffDistance) m).setInstances(trainingSet);
+		if (metric.getPrecomputedDistances() != null)
+			((HausdorffDistance) m).setInstances(metric.getPrecomputedDistances().getData());
+		else
+			((HausdorffDistance) m).setInstances(trainingSet);
 
 		classifier.setDfunc(metric);
 		classifier.build(trainingSet.getMLDataSet());
+
+		// Distances between training bags are no longer needed
+		metric.setPrecomputedDistances(null);
 	}
 
 	@Override
@@ -136,6 +143,16 @@ public abstract class MultiInstanceMultiLabelKNN extends MIMLClassifier {
 		this.metric = (MIMLDistanceFunction) metric;
 	}
 
+	@Override
+	public IDistance getBagMetric() {
+		return metric.getMetric();
+	}
+
+	@Override
+	public void setPrecomputedDistances(DistanceMatrix distances) {
+		metric.setPrecomputedDistances(distances);
+	}
+
 	public MultiLabelKNN getClassifier() {
 		return classifier;
 	}
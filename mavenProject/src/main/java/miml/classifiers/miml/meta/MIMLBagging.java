@@ -15,18 +15,26 @@
 
 package miml.classifiers.miml.meta;
 
-import java.util.Arrays;
+import java.util.List;
 
 import org.apache.commons.configuration2.Configuration;
 
 import miml.classifiers.miml.IMIMLClassifier;
 import miml.classifiers.miml.MIMLClassifier;
+import miml.classifiers.miml.MIMLPredictions;
+import miml.classifiers.miml.lazy.IPrecomputedDistances;
 import miml.core.IConfiguration;
 import miml.core.Utils;
+import miml.core.distance.DistanceMatrix;
+import miml.core.distance.IDistance;
 import miml.data.MIMLBag;
 import miml.data.MIMLInstances;
+import miml.evaluation.BatchEvaluator;
 import mulan.classifier.InvalidDataException;
+import mulan.classifier.ModelInitializationException;
 import mulan.classifier.MultiLabelOutput;
+import mulan.evaluation.Evaluation;
+import mulan.evaluation.measure.Measure;
 import weka.core.Instances;
 
 /**
@@ -73,6 +81,23 @@ public class MIMLBagging extends MIMLClassifier {
 	 */
 	protected int numClassifiers = 5;
 
+	/**
+	 * The number of threads used to build the classifiers of the ensemble. A value
+	 * less than 1 means that all available processors are used. By default 1, as
+	 * some base learners (i.e. Matlab wrappers) are not thread-safe.
+	 */
+	protected int numThreads = 1;
+
+	/**
+	 * Determines whether the distances between training bags are computed once and
+	 * shared by the members of the ensemble. Only used if the base learner
+	 * implements {@link IPrecomputedDistances}, and worth it for learners that
+	 * compute the distances between training bags when built (i.e. MIMLkNN or
+	 * DMIMLkNN). Distances are normalized with the whole training set instead of
+	 * with the sample of each member. By default it is false.
+	 */
+	protected boolean shareDistances = false;
+
 	/** Base learner. */
 	protected IMIMLClassifier baseLearner;
 
@@ -81,6 +106,27 @@ public class MIMLBagging extends MIMLClassifier {
 	 */
 	protected IMIMLClassifier ensemble[] = null;
 
+	/**
+	 * The bootstrap sample of each member of the ensemble. Element i contains the
+	 * indices of the training bags used to build the member i.
+	 */
+	protected int bootstrapIndices[][] = null;
+
+	/**
+	 * Determines whether the out-of-bag evaluation of the ensemble is computed
+	 * while building it. By default it is false.
+	 */
+	protected boolean computeOutOfBag = false;
+
+	/**
+	 * The out-of-bag evaluation of the ensemble. Each training bag is predicted by
+	 * the members whose bootstrap sample does not contain it.
+	 */
+	protected transient Evaluation outOfBagEvaluation = null;
+
+	/** The training bags that were left out by at least one member. */
+	protected transient MIMLInstances outOfBagData = null;
+
 	/**
 	 * No-argument constructor for xml configuration.
 	 */
@@ -122,16 +168,121 @@ public class MIMLBagging extends MIMLClassifier {
 
 		// Prepares the ensemble
 		ensemble = new MIMLClassifier[numClassifiers];
+		bootstrapIndices = new int[numClassifiers][];
+
+		// One distance pass over the training set for all members
+		DistanceMatrix distances = null;
+		if (shareDistances && baseLearner instanceof IPrecomputedDistances) {
+			IDistance metric = ((IPrecomputedDistances) baseLearner.makeCopy()).getBagMetric();
+			distances = new DistanceMatrix(trainingSet, metric, numThreads);
+		}
+		DistanceMatrix sharedDistances = distances;
+
+		// Members are independent, each one with its own seed
+		Utils.parallelFor(numClassifiers, numThreads, i -> {
+			IMIMLClassifier member = baseLearner.makeCopy();
 
-		for (int i = 0; i < numClassifiers; i++) {
-			ensemble[i] = baseLearner.makeCopy();
-			Instances sample = Utils.resample(trainingSet.getDataSet(), samplePercentage, sampleWithReplacement,
-					seed + i);
+			// The sample is a view of the training set, so bags are not copied
+			bootstrapIndices[i] = Utils.resampleIndices(trainingSet.getNumBags(), samplePercentage,
+					sampleWithReplacement, seed + i);
+			Instances sample = Utils.subset(trainingSet.getDataSet(), bootstrapIndices[i]);
 
 			System.out.println("\t\tBase Classifier " + i + ": " + sample.numInstances() + "/"
 					+ trainingSet.getNumBags() + " bags");
-			ensemble[i].build(new MIMLInstances(sample, trainingSet.getLabelsMetaData()));
+			if (sharedDistances != null)
+				((IPrecomputedDistances) member).setPrecomputedDistances(sharedDistances);
+			member.build(new MIMLInstances(sample, trainingSet.getLabelsMetaData()));
+			ensemble[i] = member;
+		});
+
+		outOfBagEvaluation = null;
+		outOfBagData = null;
+		if (computeOutOfBag)
+			evaluateOutOfBag(trainingSet);
+	}
+
+	/**
+	 * Computes the out-of-bag evaluation of the ensemble. Each training bag is
+	 * predicted by combining only the members that did not use it for training and
+	 * the standard mulan measures are computed over the bags left out by at least
+	 * one member. Members are split into groups as in
+	 * {@link #makePredictions(MIMLInstances)}.
+	 *
+	 * @param trainingSet The dataset used to build the ensemble.
+	 * @throws Exception If an error occurs while making predictions.
+	 */
+	protected void evaluateOutOfBag(MIMLInstances trainingSet) throws Exception {
+
+		int nMembers = ensemble.length;
+		int nBags = trainingSet.getNumBags();
+
+		// inBag[i][b] is true if bag b belongs to the bootstrap sample of member i
+		boolean[][] inBag = new boolean[nMembers][nBags];
+		int[] numVoters = new int[nBags];
+		for (int i = 0; i < nMembers; i++) {
+			for (int b : bootstrapIndices[i])
+				inBag[i][b] = true;
+			for (int b = 0; b < nBags; b++) {
+				if (!inBag[i][b])
+					numVoters[b]++;
+			}
+		}
+
+		// As in mulan's Evaluator, bags are predicted without their true labels
+		MIMLInstances unlabeled = withoutLabels(trainingSet);
+
+		int nGroups = Math.min(Utils.resolveNumThreads(numThreads), nMembers);
+		double[][] groupVotes = new double[nGroups][nBags * numLabels];
+		double[][] groupConf = new double[nGroups][nBags * numLabels];
+
+		Utils.parallelFor(nGroups, nGroups, g -> {
+			double[] votes = groupVotes[g];
+			double[] conf = groupConf[g];
+			for (int i = g * nMembers / nGroups; i < (g + 1) * nMembers / nGroups; i++) {
+				for (int b = 0; b < nBags; b++) {
+					if (!inBag[i][b]) {
+						MultiLabelOutput prediction = ensemble[i].makePrediction(unlabeled.getBag(b));
+						accumulate(prediction, votes, conf, b * numLabels);
+					}
+				}
+			}
+		});
+
+		for (int g = 1; g < nGroups; g++) {
+			for (int k = 0; k < nBags * numLabels; k++) {
+				groupVotes[0][k] += groupVotes[g][k];
+				groupConf[0][k] += groupConf[g][k];
+			}
 		}
+
+		// Only bags left out by some member can be evaluated
+		int nOutOfBag = 0;
+		for (int b = 0; b < nBags; b++) {
+			if (numVoters[b] > 0)
+				nOutOfBag++;
+		}
+		System.out.println("\t\tOut-of-bag bags: " + nOutOfBag + "/" + nBags);
+		if (nOutOfBag == 0)
+			return;
+
+		int[] outOfBagIndices = new int[nOutOfBag];
+		for (int b = 0, k = 0; b < nBags; b++) {
+			if (numVoters[b] > 0)
+				outOfBagIndices[k++] = b;
+		}
+		outOfBagData = new MIMLInstances(Utils.subset(trainingSet.getDataSet(), outOfBagIndices),
+				trainingSet.getLabelsMetaData());
+
+		MIMLPredictions predictions = new MIMLPredictions(nOutOfBag, numLabels, true, true);
+		for (int k = 0; k < nOutOfBag; k++) {
+			int b = outOfBagIndices[k];
+			predictions.set(k, combine(groupVotes[0], groupConf[0], b * numLabels, numVoters[b]));
+		}
+
+		// The same measures and updates as in the evaluation of a test set
+		List<Measure> measures = BatchEvaluator.prepareMeasures(predictions.getOutput(0), outOfBagData,
+				trainingSet);
+		outOfBagEvaluation = new BatchEvaluator().evaluate(predictions, outOfBagData, measures);
 	}
 
 	/*
@@ -142,40 +293,133 @@ public class MIMLBagging extends MIMLClassifier {
 	@Override
 	protected MultiLabelOutput makePredictionInternal(MIMLBag instance) throws Exception, InvalidDataException {
 
-		boolean bipartitions[][] = new boolean[ensemble.length][];
-		double confidences[][] = new double[ensemble.length][];
-		for (int i = 0; i < this.ensemble.length; i++) {
-
+		// A single bag is predicted sequentially, as starting a pool of threads for
+		// each bag costs more than it saves. Predicting many bags concurrently is
+		// done by makePredictions(MIMLInstances).
+		double[] sumVotes = new double[numLabels]; // double to consider weights
+		double[] sumConf = new double[numLabels];
+		for (int i = 0; i < ensemble.length; i++) {
 			MultiLabelOutput prediction = ensemble[i].makePrediction(instance);
+			accumulate(prediction, sumVotes, sumConf);
+		}
+
+		return combine(sumVotes, sumConf, 0);
+	}
 
-			bipartitions[i] = prediction.getBipartition();
-			confidences[i] = prediction.getConfidences();
+	/**
+	 * Makes a prediction for all bags of a dataset. The dataset is scored member by
+	 * member, so that the internal state of each member is reused for all bags,
+	 * and votes are merged at the end. Members are split into as many groups as
+	 * threads, each group accumulating its votes in its own buffers.
+	 *
+	 * @param data The dataset to be predicted.
+	 * @return The prediction for each bag of the dataset.
+	 * @throws Exception If an error occurs while making predictions.
+	 */
+	@Override
+	public MIMLPredictions makePredictions(MIMLInstances data) throws Exception {
+		if (!isModelInitialized()) {
+			throw new ModelInitializationException("The model has not been trained.");
 		}
 
-		double[] sumVotes = new double[numLabels]; // double to consider weights
-		double[] sumConf = new double[numLabels];
+		MIMLInstances unlabeled = withoutLabels(data);
+
+		int nMembers = ensemble.length;
+		int nBags = data.getNumBags();
+		int nGroups = Math.min(Utils.resolveNumThreads(numThreads), nMembers);
 
-		Arrays.fill(sumVotes, 0);
-		Arrays.fill(sumConf, 0);
+		// Votes of bag b and label j are stored in position b*numLabels+j
+		double[][] groupVotes = new double[nGroups][nBags * numLabels];
+		double[][] groupConf = new double[nGroups][nBags * numLabels];
 
-		for (int i = 0; i < numClassifiers; i++) {
-			for (int j = 0; j < numLabels; j++) {
-				sumVotes[j] += bipartitions[i][j] == true ? 1 : 0;
-				sumConf[j] += confidences[i][j];
+		Utils.parallelFor(nGroups, nGroups, g -> {
+			double[] votes = groupVotes[g];
+			double[] conf = groupConf[g];
+			for (int i = g * nMembers / nGroups; i < (g + 1) * nMembers / nGroups; i++) {
+				for (int b = 0; b < nBags; b++) {
+					MultiLabelOutput prediction = ensemble[i].makePrediction(unlabeled.getBag(b));
+					accumulate(prediction, votes, conf, b * numLabels);
+				}
+			}
+		});
+
+		// Merges the groups in order
+		for (int g = 1; g < nGroups; g++) {
+			for (int k = 0; k < nBags * numLabels; k++) {
+				groupVotes[0][k] += groupVotes[g][k];
+				groupConf[0][k] += groupConf[g][k];
 			}
 		}
 
+		MIMLPredictions predictions = new MIMLPredictions(nBags, numLabels, true, true);
+		for (int b = 0; b < nBags; b++) {
+			predictions.set(b, combine(groupVotes[0], groupConf[0], b * numLabels));
+		}
+		return predictions;
+	}
+
+	/**
+	 * Adds the votes and confidences of a prediction to the given buffers.
+	 *
+	 * @param prediction The prediction of a member of the ensemble.
+	 * @param votes      Buffer of votes.
+	 * @param conf       Buffer of confidences.
+	 */
+	protected void accumulate(MultiLabelOutput prediction, double[] votes, double[] conf) {
+		accumulate(prediction, votes, conf, 0);
+	}
+
+	/**
+	 * Adds the votes and confidences of a prediction to the given buffers starting
+	 * at a given offset.
+	 *
+	 * @param prediction The prediction of a member of the ensemble.
+	 * @param votes      Buffer of votes.
+	 * @param conf       Buffer of confidences.
+	 * @param offset     Position of the first label in the buffers.
+	 */
+	protected void accumulate(MultiLabelOutput prediction, double[] votes, double[] conf, int offset) {
+		boolean[] bipartition = prediction.getBipartition();
+		double[] confidences = prediction.getConfidences();
+		for (int j = 0; j < numLabels; j++) {
+			votes[offset + j] += bipartition[j] ? 1 : 0;
+			conf[offset + j] += confidences[j];
+		}
+	}
+
+	/**
+	 * Combines the sum of votes and confidences of the ensemble into a prediction.
+	 *
+	 * @param sumVotes Buffer with the sum of votes.
+	 * @param sumConf  Buffer with the sum of confidences.
+	 * @param offset   Position of the first label in the buffers.
+	 * @return The prediction of the ensemble.
+	 */
+	protected MultiLabelOutput combine(double[] sumVotes, double[] sumConf, int offset) {
+		return combine(sumVotes, sumConf, offset, ensemble.length);
+	}
+
+	/**
+	 * Combines the sum of votes and confidences of some members of the ensemble
+	 * into a prediction.
+	 *
+	 * @param sumVotes  Buffer with the sum of votes.
+	 * @param sumConf   Buffer with the sum of confidences.
+	 * @param offset    Position of the first label in the buffers.
+	 * @param numVoters The number of members whose votes are in the buffers.
+	 * @return The prediction of the ensemble.
+	 */
+	protected MultiLabelOutput combine(double[] sumVotes, double[] sumConf, int offset, int numVoters) {
 		double[] confidence = new double[numLabels];
 		for (int j = 0; j < numLabels; j++) {
 			if (useConfidences) {
-				confidence[j] = sumConf[j] / numClassifiers;
+				confidence[j] = sumConf[offset + j] / numVoters;
 			} else {
-				confidence[j] = sumVotes[j] / numClassifiers;
+				confidence[j] = sumVotes[offset + j] / numVoters;
 			}
 		}
 
-		MultiLabelOutput mlo = new MultiLabelOutput(confidence, this.threshold);
-		return mlo;
+		return new MultiLabelOutput(confidence, this.threshold);
 	}
 
 	/*
@@ -196,6 +440,9 @@ public class MIMLBagging extends MIMLClassifier {
 
 		this.samplePercentage = configuration.getDouble("samplePercentage", 100);
 		this.numClassifiers = configuration.getInt("numClassifiers", 10);
+		this.numThreads = configuration.getInt("numThreads", 1);
+		this.computeOutOfBag = configuration.getBoolean("computeOutOfBag", false);
+		this.shareDistances = configuration.getBoolean("shareDistances", false);
 
 		try {
 			// Get the base classifier name
@@ -234,6 +481,96 @@ public class MIMLBagging extends MIMLClassifier {
 		return numClassifiers;
 	}
 
+	/**
+	 * Returns the bootstrap sample of each member of the ensemble. Element i
+	 * contains the indices of the training bags used to build the member i. This
+	 * method must be called after building the classifier.
+	 *
+	 * @return The indices of the bootstrap samples.
+	 */
+	public int[][] getBootstrapIndices() {
+		return bootstrapIndices;
+	}
+
+	/**
+	 * Returns whether the out-of-bag evaluation is computed while building the
+	 * ensemble.
+	 *
+	 * @return True if the out-of-bag evaluation is computed.
+	 */
+	public boolean isComputeOutOfBag() {
+		return computeOutOfBag;
+	}
+
+	/**
+	 * Sets whether the out-of-bag evaluation is computed while building the
+	 * ensemble.
+	 *
+	 * @param computeOutOfBag The value of the property.
+	 */
+	public void setComputeOutOfBag(boolean computeOutOfBag) {
+		this.computeOutOfBag = computeOutOfBag;
+	}
+
+	/**
+	 * Returns whether the distances between training bags are shared by the
+	 * members of the ensemble.
+	 *
+	 * @return True if distances are shared.
+	 */
+	public boolean isShareDistances() {
+		return shareDistances;
+	}
+
+	/**
+	 * Sets whether the distances between training bags are computed once and
+	 * shared by the members of the ensemble.
+	 *
+	 * @param shareDistances The value of the property.
+	 */
+	public void setShareDistances(boolean shareDistances) {
+		this.shareDistances = shareDistances;
+	}
+
+	/**
+	 * Returns the out-of-bag evaluation of the ensemble. This method must be called
+	 * after building the classifier with computeOutOfBag set to true.
+	 *
+	 * @return The out-of-bag evaluation or null if it has not been computed.
+	 */
+	public Evaluation getOutOfBagEvaluation() {
+		return outOfBagEvaluation;
+	}
+
+	/**
+	 * Returns the training bags used in the out-of-bag evaluation, that is, those
+	 * left out by at least one member of the ensemble.
+	 *
+	 * @return The out-of-bag bags or null if the evaluation has not been computed.
+	 */
+	public MIMLInstances getOutOfBagData() {
+		return outOfBagData;
+	}
+
+	/**
+	 * Returns the number of threads used to build the ensemble.
+	 *
+	 * @return Number of threads.
+	 */
+	public int getNumThreads() {
+		return numThreads;
+	}
+
+	/**
+	 * Sets the number of threads used to build the ensemble. A value less than 1
+	 * means that all available processors are used.
+	 *
+	 * @param numThreads Number of threads.
+	 */
+	public void setNumThreads(int numThreads) {
+		this.numThreads = numThreads;
+	}
+
 	/**
 	 * Returns the percentage of instances used for sampling with replacement.
 	 *
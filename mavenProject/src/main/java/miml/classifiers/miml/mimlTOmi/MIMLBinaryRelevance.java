@@ -1,11 +1,24 @@
 package miml.classifiers.miml.mimlTOmi;
 
+import java.util.concurrent.TimeUnit;
+
+import miml.core.Utils;
+import miml.data.MIMLInstances;
+import miml.transformation.mimlTOmi.BRTransformation;
+import mulan.classifier.MultiLabelOutput;
 import mulan.classifier.transformation.BinaryRelevance;
+import mulan.data.MultiLabelInstances;
+import weka.classifiers.AbstractClassifier;
 import weka.classifiers.Classifier;
+import weka.core.Instance;
+import weka.core.Instances;
 
 /**
- * Wrapper for mulan BinaryRelevance to be used in MIML to MI algorithms.
- * 
+ * Wrapper for mulan BinaryRelevance to be used in MIML to MI algorithms. The
+ * binary view of each label and its multi-instance classifier are built on
+ * numThreads threads, and the time required to build the model of each label
+ * is reported.
+ *
  * @author Alvaro A. Belmonte
  * @author Amelia Zafra
  * @author Eva Gigaja
@@ -18,6 +31,21 @@ public class MIMLBinaryRelevance extends BinaryRelevance {
 	 */
 	private static final long serialVersionUID = 1706817441965109002L;
 
+	/**
+	 * The number of threads used to build the per-label models. A value less than
+	 * 1 means that all available processors are used. By default 1.
+	 */
+	protected int numThreads = 1;
+
+	/** The transformation that builds the binary view of each label. */
+	protected BRTransformation transformation;
+
+	/** The name of the label of each model. */
+	protected String[] correspondence;
+
+	/** The time in milliseconds required to build the model of each label. */
+	protected long[] trainTimes;
+
 	/**
 	 * Creates a new instance.
 	 *
@@ -26,7 +54,96 @@ public class MIMLBinaryRelevance extends BinaryRelevance {
 	 */
 	public MIMLBinaryRelevance(Classifier classifier) {
 		super(classifier);
-		// TODO Auto-generated constructor stub
+	}
+
+	@Override
+	protected void buildInternal(MultiLabelInstances train) throws Exception {
+		ensemble = new Classifier[numLabels];
+		trainTimes = new long[numLabels];
+
+		correspondence = new String[numLabels];
+		for (int i = 0; i < numLabels; i++) {
+			correspondence[i] = train.getDataSet().attribute(labelIndices[i]).name();
+			ensemble[i] = AbstractClassifier.makeCopy(baseClassifier);
+		}
+
+		debug("preparing shell");
+		transformation = new BRTransformation(new MIMLInstances(train.getDataSet(), train.getLabelsMetaData()));
+
+		Utils.parallelFor(numLabels, numThreads, i -> {
+			long startTime = System.nanoTime();
+			Instances shell = transformation.transformBags(i);
+			debug("Bulding model " + (i + 1) + "/" + numLabels);
+			ensemble[i].buildClassifier(shell);
+			trainTimes[i] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+		});
+
+		for (int i = 0; i < numLabels; i++)
+			System.out.println("\t Model for label " + correspondence[i] + " built in " + trainTimes[i] + " ms.");
+	}
+
+	@Override
+	protected MultiLabelOutput makePredictionInternal(Instance instance) {
+		boolean[] bipartition = new boolean[numLabels];
+		double[] confidences = new double[numLabels];
+
+		for (int counter = 0; counter < numLabels; counter++) {
+			Instance transformedInstance = transformation.transformBag(instance, counter);
+			double distribution[];
+			try {
+				distribution = ensemble[counter].distributionForInstance(transformedInstance);
+			} catch (Exception e) {
+				System.out.println(e);
+				return null;
+			}
+			int maxIndex = (distribution[0] > distribution[1]) ? 0 : 1;
+
+			// Ensure correct predictions both for class values {0,1} and {1,0}
+			bipartition[counter] = (maxIndex == 1) ? true : false;
+
+			// The confidence of the label being equal to 1
+			confidences[counter] = distribution[1];
+		}
+
+		return new MultiLabelOutput(bipartition, confidences);
+	}
+
+	@Override
+	public Classifier getModel(String labelName) {
+		for (int i = 0; i < numLabels; i++) {
+			if (correspondence[i].equals(labelName)) {
+				return ensemble[i];
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the time in milliseconds required to build the model of each label.
+	 *
+	 * @return The time of each label or null if the classifier is not built.
+	 */
+	public long[] getTrainTimes() {
+		return trainTimes;
+	}
+
+	/**
+	 * Returns the number of threads used to build the per-label models.
+	 *
+	 * @return The number of threads.
+	 */
+	public int getNumThreads() {
+		return numThreads;
+	}
+
+	/**
+	 * Sets the number of threads used to build the per-label models. A value less
+	 * than 1 means that all available processors are used.
+	 *
+	 * @param numThreads The number of threads.
+	 */
+	public void setNumThreads(int numThreads) {
+		this.numThreads = numThreads;
 	}
 
 }
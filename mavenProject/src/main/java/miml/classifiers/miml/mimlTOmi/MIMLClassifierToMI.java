@@ -155,6 +155,12 @@ public class MIMLClassifierToMI extends MIMLClassifier {
 			}
 		}
 
+		// Per-label models of binary relevance are built by this number of threads
+		if (transformationClassifier instanceof MIMLBinaryRelevance) {
+			int numThreads = configuration.getInt("transformationMethod[@numThreads]", 1);
+			((MIMLBinaryRelevance) transformationClassifier).setNumThreads(numThreads);
+		}
+
 		ConfigParameters.setClassifierName(baseName);
 		ConfigParameters.setTransformationMethod(transformName);
 		ConfigParameters.setIsTransformation(true);
@@ -20,6 +20,7 @@ import java.util.Objects;
 import org.apache.commons.configuration2.Configuration;
 
 import miml.classifiers.miml.MIMLClassifier;
+import miml.classifiers.miml.MIMLPredictions;
 import miml.core.ConfigParameters;
 import miml.core.Params;
 import miml.core.Utils;
@@ -28,6 +29,7 @@ import miml.data.MIMLInstances;
 import miml.transformation.mimlTOml.KMeansTransformation;
 import miml.transformation.mimlTOml.MIMLtoML;
 import miml.transformation.mimlTOml.MedoidTransformation;
+import mulan.classifier.ModelInitializationException;
 import mulan.classifier.MultiLabelLearner;
 import mulan.classifier.MultiLabelOutput;
 import mulan.data.MultiLabelInstances;
@@ -87,6 +89,12 @@ public class MIMLClassifierToML extends MIMLClassifier {
 
 	protected MultiLabelInstances templateWithBagId;
 
+	/** The header of the dataset without bagId used to build the base classifier */
+	protected Instances header;
+
+	/** The index in the transformed instance of each attribute of the header */
+	protected int[] attributeMapping;
+
 	/**
 	 * Basic constructor to initialize the classifier.
 	 *
@@ -135,6 +143,10 @@ public class MIMLClassifierToML extends MIMLClassifier {
 		// attribute
 		MultiLabelInstances withoutBagId = new MultiLabelInstances(newData, mimlDataSet.getLabelsMetaData());
 
+		// Transformed bags are mapped onto this header for prediction
+		header = new Instances(newData, 0);
+		attributeMapping = transformationMethod.attributeMapping(header);
+
 		baseClassifier.build(withoutBagId);
 	}
 
@@ -150,16 +162,38 @@ public class MIMLClassifierToML extends MIMLClassifier {
 	@Override
 	protected MultiLabelOutput makePredictionInternal(MIMLBag bag) throws Exception {
 
-		Instance instance = transformationMethod.transformInstance(bag);
+		// The transformed instance is built without the bagId attribute
+		Instance instance = transformationMethod.transformInstance(bag, header, attributeMapping);
+
+		return baseClassifier.makePrediction(instance);
+	}
 
-		// Delete bagIdAttribute
-		// Instances newData = new Instances(this.mlDataSetWithBagId.getDataSet(), 0);
+	/**
+	 * Makes a prediction for all bags of a dataset. All bags are transformed at
+	 * once, in parallel if the transformation method allows it, and then the
+	 * transformed instances are predicted by the base classifier.
+	 *
+	 * @param data The dataset to be predicted.
+	 * @return The prediction for each bag of the dataset.
+	 * @throws Exception If an error occurs while making the predictions.
+	 */
+	@Override
+	public MIMLPredictions makePredictions(MIMLInstances data) throws Exception {
+		if (!isModelInitialized()) {
+			throw new ModelInitializationException("The model has not been trained.");
+		}
 
-		Instances newData = new Instances(templateWithBagId.getDataSet(), 0);
-		newData.add(instance);
-		newData = Filter.useFilter(newData, removeFilter);
+		Instance[] instances = transformationMethod.transformInstances(withoutLabels(data), header,
+				attributeMapping);
 
-		return baseClassifier.makePrediction(newData.get(0));
+		MIMLPredictions predictions = null;
+		for (int b = 0; b < instances.length; b++) {
+			MultiLabelOutput prediction = baseClassifier.makePrediction(instances[b]);
+			if (predictions == null)
+				predictions = new MIMLPredictions(instances.length, numLabels, prediction);
+			predictions.set(b, prediction);
+		}
+		return predictions == null ? new MIMLPredictions(0, numLabels, false, false) : predictions;
 	}
 
 	/*
@@ -206,6 +240,14 @@ public class MIMLClassifierToML extends MIMLClassifier {
 		try {
 			this.transformationMethod = Objects.requireNonNull(transformerClass).getConstructor().newInstance();
 
+			// Bags are transformed by this number of threads
+			int numThreads = configuration.getInt("transformationMethod[@numThreads]", 1);
+			this.transformationMethod.setNumThreads(numThreads);
+
+			// Transformed bags can be shared across folds and runs on the same dataset
+			boolean useCache = configuration.getBoolean("transformationMethod[@cache]", false);
+			this.transformationMethod.setUseCache(useCache);
+
 			// Medoid transformation allows to normalize the resulting transformed dataset
 			if (transformerName.contains("MedoidTransformation")) {
 				boolean normalize = configuration.getBoolean("transformationMethod[@normalize]", false);
@@ -223,6 +265,14 @@ public class MIMLClassifierToML extends MIMLClassifier {
 				int seed = configuration.getInt("transformationMethod[@seed]", 1);
 				((MedoidTransformation) this.transformationMethod).setSeed(seed);
 
+				// CLARA sampling for large datasets
+				int sampleSize = configuration.getInt("transformationMethod[@sampleSize]", -1);
+				((MedoidTransformation) this.transformationMethod).setSampleSize(sampleSize);
+				int numSamples = configuration.getInt("transformationMethod[@numSamples]", 5);
+				((MedoidTransformation) this.transformationMethod).setNumSamples(numSamples);
+				boolean cacheDistances = configuration.getBoolean("transformationMethod[@cacheDistances]", true);
+				((MedoidTransformation) this.transformationMethod).setCacheDistances(cacheDistances);
+
 			}
 
 			if (transformerName.contains("KMeansTransformation")) {
@@ -238,6 +288,14 @@ public class MIMLClassifierToML extends MIMLClassifier {
 				int seed = configuration.getInt("transformationMethod[@seed]", 1);
 				((KMeansTransformation) this.transformationMethod).setSeed(seed);
 
+				int deltaSampleSize = configuration.getInt("transformationMethod[@deltaSampleSize]", -1);
+				((KMeansTransformation) this.transformationMethod).setDeltaSampleSize(deltaSampleSize);
+
+				int miniBatchSize = configuration.getInt("transformationMethod[@miniBatchSize]", -1);
+				((KMeansTransformation) this.transformationMethod).setMiniBatchSize(miniBatchSize);
+				int miniBatchIterations = configuration.getInt("transformationMethod[@miniBatchIterations]", 100);
+				((KMeansTransformation) this.transformationMethod).setMiniBatchIterations(miniBatchIterations);
+
 			}
 
 		} catch (Exception e) {
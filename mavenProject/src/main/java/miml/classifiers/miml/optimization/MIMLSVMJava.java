@@ -0,0 +1,506 @@
+/*    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 2 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program; if not, write to the Free Software
+ *    Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package miml.classifiers.miml.optimization;
+
+import java.util.ArrayList;
+
+import org.apache.commons.configuration2.Configuration;
+
+import miml.classifiers.miml.MIMLClassifier;
+import miml.classifiers.miml.MIMLPredictions;
+import miml.core.Utils;
+import miml.data.MIMLBag;
+import miml.data.MIMLInstances;
+import miml.transformation.mimlTOml.MedoidTransformation;
+import mulan.classifier.InvalidDataException;
+import mulan.classifier.ModelInitializationException;
+import mulan.classifier.MultiLabelOutput;
+import mulan.data.MultiLabelInstances;
+import weka.classifiers.Classifier;
+import weka.classifiers.functions.SMO;
+import weka.classifiers.functions.supportVector.Kernel;
+import weka.classifiers.functions.supportVector.PolyKernel;
+import weka.classifiers.functions.supportVector.RBFKernel;
+import weka.classifiers.rules.ZeroR;
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instance;
+import weka.core.Instances;
+
+/**
+ * Java implementation of the
+ * <a href="http://www.lamda.nju.edu.cn/code_MIML.ashx">MIMLSVM</a> algorithm
+ * for MIML data that does not require Matlab.<br>
+ * See: <em> Z.-H. Zhou and M.-L. Zhang. Multi-instance multi-label learning
+ * with application to scene classification. In: Advances in Neural Information
+ * Processing Systems 19 (NIPS'06) (Vancouver, Canada) Cambridge, MA: MIT Press,
+ * 2007.</em><br>
+ * Bags are embedded by {@link MedoidTransformation} (k-medoids clustering with
+ * the Hausdorff distance, being k a ratio of the number of training bags) and
+ * a Weka's {@link SMO} is trained for each label. Per-label SVMs are trained in
+ * parallel. It accepts the same configuration than {@link MIMLSVM}. The h
+ * (shrinking) parameter has no equivalent in SMO and it is kept for
+ * compatibility.
+ *
+ * @author Eva Gibaja
+ * @version 20261019
+ */
+public class MIMLSVMJava extends MIMLClassifier {
+
+	/** For serialization. */
+	private static final long serialVersionUID = 4215309856731412266L;
+
+	/**
+	 * Gaussian kernel SVM. The type of svm used in training, which can take the
+	 * value of "RBF", "Poly" or "Linear".
+	 */
+	String type = "RBF";
+
+	/**
+	 * A string that gives the corresponding parameters used for the svm:
+	 * <ul>
+	 * <li>If type is "RBF", para gives the value of gamma (i.e. para="1") where the
+	 * kernel is exp(-Gamma*|x(i)-x(j)|^2).</li>
+	 * <li>If type is "Poly", then para gives the value of gamma, coefficient, and
+	 * degree respectively, where the kernel is
+	 * (gamma*&lt;x(i),x(j)&gt;+coefficient)^degree (i.e. para="1, 0, 1").</li>
+	 * <li>If type is "Linear", then para is an empty string, where the kernel is
+	 * &lt;x(i),x(j)&gt; (i.e. para ="").</li>
+	 * </ul>
+	 */
+	String para = "0.2";
+
+	/** The cost parameter used for the base svm classifier. */
+	double cost = 1;
+
+	/**
+	 * Whether to use the shrinking heuristics, 0 or 1 (default 1). Not used by
+	 * SMO.
+	 */
+	double h = 1;
+
+	/** Parameter k is set to be 20% of the number of training bags. */
+	double ratio = 0.2;
+
+	/** Seed for kmedoids clustering. */
+	double seed = 1;
+
+	/**
+	 * The number of threads used to cluster bags and to train per-label SVMs. A
+	 * value less than 1 means that all available processors are used. By default
+	 * 1.
+	 */
+	int numThreads = 1;
+
+	/** Transformation of bags into distances to medoids. */
+	protected MedoidTransformation transformation;
+
+	/** The per-label binary classifiers. */
+	protected Classifier[] classifiers;
+
+	/** Header of the per-label binary datasets. */
+	protected Instances header;
+
+	/**
+	 * No-argument constructor for xml configuration.
+	 */
+	public MIMLSVMJava() {
+		super();
+	}
+
+	/**
+	 * Constructor initializing fields of MIMLSVMJava.
+	 *
+	 * @param type  Value for type field.
+	 * @param para  Value for para field.
+	 * @param cost  Value for cost field.
+	 * @param h     Value for h field.
+	 * @param ratio Value for ratio field.
+	 * @param seed  Value for seed field.
+	 */
+	public MIMLSVMJava(String type, String para, double cost, double h, double ratio, double seed) {
+		this();
+		this.type = type;
+		this.para = para;
+		this.cost = cost;
+		this.h = h;
+		this.ratio = ratio;
+		this.seed = seed;
+	}
+
+	@Override
+	public void configure(Configuration configuration) {
+		this.type = configuration.getString("type", "RBF");
+		this.para = configuration.getString("para", "0.2");
+		this.cost = configuration.getDouble("cost", 1);
+		this.h = configuration.getDouble("h", 1);
+		this.ratio = configuration.getDouble("ratio", 0.2);
+		this.seed = configuration.getDouble("seed", 1);
+		this.numThreads = configuration.getInt("numThreads", 1);
+	}
+
+	@Override
+	protected void buildInternal(MIMLInstances trainingSet) throws Exception {
+
+		// Embeds each bag as its distances to the medoids
+		transformation = new MedoidTransformation(trainingSet, ratio);
+		transformation.setSeed((int) seed);
+		transformation.setNumThreads(numThreads);
+		MultiLabelInstances transformed = transformation.transformDataset();
+		Instances data = transformed.getDataSet();
+		int[] transformedLabelIndices = transformed.getLabelIndices();
+
+		int numMedoids = transformed.getFeatureIndices().length - 1;
+		header = prepareHeader(numMedoids);
+
+		classifiers = new Classifier[numLabels];
+		Utils.parallelFor(numLabels, numThreads, l -> {
+
+			// Binary dataset for label l
+			Instances binary = new Instances(header, data.numInstances());
+			for (int i = 0; i < data.numInstances(); i++) {
+				Instance bag = data.instance(i);
+				double[] values = new double[numMedoids + 1];
+				for (int k = 0; k < numMedoids; k++)
+					values[k] = bag.value(k + 1);
+				values[numMedoids] = bag.value(transformedLabelIndices[l]);
+				binary.add(new DenseInstance(1.0, values));
+			}
+
+			Classifier classifier;
+			if (binary.numDistinctValues(numMedoids) < 2) {
+				// All bags share the same value of the label
+				classifier = new ZeroR();
+			} else {
+				SMO smo = new SMO();
+				smo.setC(cost);
+				smo.setKernel(buildKernel());
+				smo.setBuildLogisticModels(true);
+				classifier = smo;
+			}
+			classifier.buildClassifier(binary);
+			classifiers[l] = classifier;
+			debug("Label " + l + " trained");
+		});
+	}
+
+	@Override
+	protected MultiLabelOutput makePredictionInternal(MIMLBag bag) throws Exception, InvalidDataException {
+		return predict(transformation.transformInstance(bag));
+	}
+
+	/**
+	 * Makes a prediction for all bags of a dataset. All bags are embedded at once
+	 * by numThreads threads and then the per-label SVMs are applied to each
+	 * embedded bag.
+	 *
+	 * @param data The dataset to be predicted.
+	 * @return The prediction for each bag of the dataset.
+	 * @throws Exception If an error occurs while making the predictions.
+	 */
+	@Override
+	public MIMLPredictions makePredictions(MIMLInstances data) throws Exception {
+		if (!isModelInitialized()) {
+			throw new ModelInitializationException("The model has not been trained.");
+		}
+
+		Instance[] transformed = transformation.transformInstances(withoutLabels(data));
+		MIMLPredictions predictions = new MIMLPredictions(transformed.length, numLabels, true, true);
+		for (int b = 0; b < transformed.length; b++)
+			predictions.set(b, predict(transformed[b]));
+		return predictions;
+	}
+
+	/**
+	 * Applies the per-label SVMs to a bag embedded as its distances to the
+	 * medoids.
+	 *
+	 * @param transformed The bag transformed by the medoid transformation.
+	 * @return The output of the learner for the bag.
+	 * @throws Exception If an error occurs while making the prediction.
+	 */
+	protected MultiLabelOutput predict(Instance transformed) throws Exception {
+		int numMedoids = header.numAttributes() - 1;
+
+		double[] values = new double[numMedoids + 1];
+		for (int k = 0; k < numMedoids; k++)
+			values[k] = transformed.value(k + 1);
+		values[numMedoids] = weka.core.Utils.missingValue();
+		Instance instance = new DenseInstance(1.0, values);
+		instance.setDataset(header);
+
+		boolean bipartition[] = new boolean[numLabels];
+		double confidences[] = new double[numLabels];
+		int best = 0;
+		boolean anyRelevant = false;
+		for (int l = 0; l < numLabels; l++) {
+			confidences[l] = classifiers[l].distributionForInstance(instance)[1];
+			bipartition[l] = confidences[l] >= 0.5;
+			anyRelevant |= bipartition[l];
+			if (confidences[l] > confidences[best])
+				best = l;
+		}
+
+		// T-criterion: if no label is relevant the most confident one is predicted
+		if (!anyRelevant)
+			bipartition[best] = true;
+
+		return new MultiLabelOutput(bipartition, confidences);
+	}
+
+	/**
+	 * Prepares the header of the per-label binary datasets, with an attribute for
+	 * the distance to each medoid and a binary class attribute.
+	 *
+	 * @param numMedoids The number of medoids.
+	 * @return The header.
+	 */
+	protected Instances prepareHeader(int numMedoids) {
+		ArrayList<Attribute> attributes = new ArrayList<Attribute>(numMedoids + 1);
+		for (int k = 1; k <= numMedoids; k++)
+			attributes.add(new Attribute("distanceToMedoid_" + k));
+
+		ArrayList<String> values = new ArrayList<String>(2);
+		values.add("0");
+		values.add("1");
+		attributes.add(new Attribute("class", values));
+
+		Instances binaryHeader = new Instances("MIMLSVM_binary", attributes, 0);
+		binaryHeader.setClassIndex(numMedoids);
+		return binaryHeader;
+	}
+
+	/**
+	 * Builds the kernel of the SVM given the type and para properties.
+	 *
+	 * @return The kernel.
+	 * @throws Exception If the type of kernel is unknown or its parameters are not
+	 *                   valid.
+	 */
+	protected Kernel buildKernel() throws Exception {
+		switch (type) {
+		case "RBF":
+			RBFKernel rbf = new RBFKernel();
+			rbf.setGamma(Double.parseDouble(para.trim()));
+			return rbf;
+		case "Poly":
+			// para is "gamma, coefficient, degree"
+			String[] values = para.trim().split("[,\\s]+");
+			if (values.length != 3)
+				throw new Exception(
+						"Poly svm requires para=\"gamma, coefficient, degree\" but para=\"" + para + "\".");
+			ScaledPolyKernel poly = new ScaledPolyKernel();
+			poly.setGamma(Double.parseDouble(values[0]));
+			poly.setCoefficient(Double.parseDouble(values[1]));
+			poly.setExponent(Double.parseDouble(values[2]));
+			return poly;
+		case "Linear":
+			PolyKernel linear = new PolyKernel();
+			linear.setExponent(1);
+			return linear;
+		default:
+			throw new Exception("Unknown svm type: " + type + ". Valid types are RBF, Poly and Linear.");
+		}
+	}
+
+	/**
+	 * Polynomial kernel (gamma*&lt;x(i),x(j)&gt;+coefficient)^degree, as the
+	 * polynomial kernel of libsvm used by the Matlab version of MIMLSVM.
+	 */
+	public static class ScaledPolyKernel extends PolyKernel {
+
+		/** For serialization. */
+		private static final long serialVersionUID = -5227283715632907406L;
+
+		/** The factor of the dot product. */
+		protected double gamma = 1;
+
+		/** The constant added to the scaled dot product. */
+		protected double coefficient = 0;
+
+		@Override
+		protected double evaluate(int id1, int id2, Instance inst1) throws Exception {
+			double result = id1 == id2 ? dotProd(inst1, inst1) : dotProd(inst1, m_data.instance(id2));
+			result = gamma * result + coefficient;
+			if (m_exponent != 1.0)
+				result = Math.pow(result, m_exponent);
+			return result;
+		}
+
+		/**
+		 * Gets the factor of the dot product.
+		 *
+		 * @return double
+		 */
+		public double getGamma() {
+			return gamma;
+		}
+
+		/**
+		 * Sets the factor of the dot product.
+		 *
+		 * @param gamma The new value for the property.
+		 */
+		public void setGamma(double gamma) {
+			this.gamma = gamma;
+		}
+
+		/**
+		 * Gets the constant added to the scaled dot product.
+		 *
+		 * @return double
+		 */
+		public double getCoefficient() {
+			return coefficient;
+		}
+
+		/**
+		 * Sets the constant added to the scaled dot product.
+		 *
+		 * @param coefficient The new value for the property.
+		 */
+		public void setCoefficient(double coefficient) {
+			this.coefficient = coefficient;
+		}
+	}
+
+	/**
+	 * Gets the value of the type property.
+	 *
+	 * @return String
+	 */
+	public String getType() {
+		return type;
+	}
+
+	/**
+	 * Sets the value of the type property.
+	 *
+	 * @param type The new value for the property.
+	 */
+	public void setType(String type) {
+		this.type = type;
+	}
+
+	/**
+	 * Gets the value of the para property.
+	 *
+	 * @return String
+	 */
+	public String getPara() {
+		return para;
+	}
+
+	/**
+	 * Sets the value of the para property.
+	 *
+	 * @param para The new value for the property.
+	 */
+	public void setPara(String para) {
+		this.para = para;
+	}
+
+	/**
+	 * Gets the value of the cost property.
+	 *
+	 * @return double
+	 */
+	public double getCost() {
+		return cost;
+	}
+
+	/**
+	 * Sets the value of the cost property.
+	 *
+	 * @param cost The new value for the property.
+	 */
+	public void setCost(double cost) {
+		this.cost = cost;
+	}
+
+	/**
+	 * Gets the value of the h property.
+	 *
+	 * @return double
+	 */
+	public double getH() {
+		return h;
+	}
+
+	/**
+	 * Sets the value of the h property.
+	 *
+	 * @param h The new value for the property.
+	 */
+	public void setH(double h) {
+		this.h = h;
+	}
+
+	/**
+	 * Gets the value of the ratio property.
+	 *
+	 * @return double
+	 */
+	public double getRatio() {
+		return ratio;
+	}
+
+	/**
+	 * Sets the value of the ratio property.
+	 *
+	 * @param ratio The new value for the property.
+	 */
+	public void setRatio(double ratio) {
+		this.ratio = ratio;
+	}
+
+	/**
+	 * Gets the value of the seed property.
+	 *
+	 * @return double
+	 */
+	public double getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Sets the value of the seed property.
+	 *
+	 * @param seed The new value for the property.
+	 */
+	public void setSeed(double seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * Gets the number of threads used to cluster bags and to train per-label SVMs.
+	 *
+	 * @return int
+	 */
+	public int getNumThreads() {
+		return numThreads;
+	}
+
+	/**
+	 * Sets the number of threads used to cluster bags and to train per-label SVMs.
+	 * A value less than 1 means that all available processors are used.
+	 *
+	 * @param numThreads The new value for the property.
+	 */
+	public void setNumThreads(int numThreads) {
+		this.numThreads = numThreads;
+	}
+
+}
@@ -17,14 +17,15 @@ package miml.clusterers;
 
 import java.util.Arrays;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
 
+import miml.core.Utils;
 import miml.core.distance.IDistance;
 import miml.core.distance.MaximalHausdorff;
 import weka.clusterers.RandomizableClusterer;
 import weka.core.Capabilities;
 import weka.core.Instance;
 import weka.core.Instances;
-import weka.core.Utils;
 
 /**
  * Class implementing the PAM (Partitioning Around Medoids) approximation [1] to
@@ -34,6 +35,14 @@ import weka.core.Utils;
  * (Program PAM). In Finding Groups in Data (eds L. Kaufman and P.J. Rousseeuw).
  * https://doi.org/10.1002/9780470316801.ch2 </em>
  * 
+ * [2] <em> Schubert, E. and Rousseeuw, P.J. (2021). Fast and eager k-medoids
+ * clustering: O(k) runtime improvement of the PAM, CLARA, and CLARANS
+ * algorithms. Information Systems, 101, 101804.</em>
+ * 
+ * [3] <em> Kaufman, L. and Rousseeuw, P.J. (1990). Clustering Large
+ * Applications (Program CLARA). In Finding Groups in Data (eds L. Kaufman and
+ * P.J. Rousseeuw). https://doi.org/10.1002/9780470316801.ch3 </em>
+ * 
  * 
  * @author Eva Gibaja
  * @version 20230412
@@ -88,6 +97,69 @@ public class KMedoids extends RandomizableClusterer implements weka.clusterers.C
 	 */
 	protected boolean randomInitialization = true;
 
+	/**
+	 * Whether the SWAP step is performed by FasterPAM [2] or by the greedy
+	 * evaluation of every (medoid, non-medoid) swap. By default FasterPAM is used.
+	 * Both schemes reach different local optima, so the default medoids, and the
+	 * results of the classes clustering bags with KMedoids such as
+	 * MedoidTransformation and MIMLSVMJava, differ from those of the greedy
+	 * scheme, which is kept unchanged to reproduce them.
+	 */
+	protected boolean fasterPAM = true;
+
+	/**
+	 * If it is greater than 0 (and less than the number of instances), CLARA is
+	 * used and PAM is applied to samples of this number of instances instead of to
+	 * the whole dataset. A usual value is 40+2*numClusters. By default -1, PAM is
+	 * applied to the whole dataset.
+	 */
+	protected int sampleSize = -1;
+
+	/** The number of samples drawn by CLARA. By default 5 samples. */
+	protected int numSamples = 5;
+
+	/**
+	 * Whether CLARA reuses the distances between the instances and the best
+	 * medoids found so far, which are kept to evaluate the medoids, instead of
+	 * computing them again in the following samples. It does not require more
+	 * memory than the nInstances x nClusters distances that CLARA keeps anyway. By
+	 * default true.
+	 */
+	protected boolean cacheDistances = true;
+
+	/**
+	 * Distances of each instance to the best medoids found so far by CLARA, or
+	 * null if they are not reused. Element [i][k] is the distance of instance i to
+	 * the medoid in column k.
+	 */
+	protected transient double[][] knownDistances;
+
+	/**
+	 * Column of knownDistances of each instance that is one of the best medoids
+	 * found so far by CLARA, or -1 for the rest of instances.
+	 */
+	protected transient int[] knownColumns;
+
+	/**
+	 * Distances of each instance to each medoid. Element [i][k] is the distance of
+	 * instance i to medoid k. It is only computed by CLARA, otherwise distances are
+	 * read from the distance matrix.
+	 */
+	protected double[][] medoidDistances;
+
+	/**
+	 * The number of threads used to compute distances and to evaluate candidate
+	 * medoids. A value less than 1 means that all available processors are used.
+	 * By default 1.
+	 */
+	protected int numThreads = 1;
+
+	/**
+	 * Pool of numThreads threads shared by all the parallel steps of a call to
+	 * {@link #buildClusterer(Instances)}, or null if a single thread is used.
+	 */
+	protected transient ExecutorService pool;
+
 	/** Final cost of the clustering configuration. */
 	protected double configurationCost;
 
@@ -191,20 +263,27 @@ public class KMedoids extends RandomizableClusterer implements weka.clusterers.C
 
 	/**
 	 * Performs an initialization of medoids based on the BUILD step of PAM
-	 * algorithm.
+	 * algorithm. The distance of each instance to its nearest medoid is kept and
+	 * updated each time a medoid is added, and the gain of the candidates is
+	 * computed in parallel by numThreads threads.
+	 * 
+	 * @throws Exception To be handled in an upper level.
 	 */
-	protected void buildInitialization() {
+	protected void buildInitialization() throws Exception {
 
 		// Computes the sum of distances of each instance to the rest
 		double sumDistances[] = new double[numInstances];
-
-		int bestIndex = 0;
-		for (int i = 0; i < numInstances; i++) {
-			sumDistances[i] = 0;
+		Utils.parallelFor(numInstances, pool, i -> {
+			double sum = 0;
 			for (int j = 0; j < numInstances; j++) {
 				if (j != i)
-					sumDistances[i] += distancesMatrix[i][j];
+					sum += distancesMatrix[i][j];
 			}
+			sumDistances[i] = sum;
+		});
+
+		int bestIndex = 0;
+		for (int i = 0; i < numInstances; i++) {
 			if (compare(sumDistances[i], sumDistances[bestIndex]))
 				bestIndex = i;
 		}
@@ -213,42 +292,41 @@ public class KMedoids extends RandomizableClusterer implements weka.clusterers.C
 		// objects
 		int k = 0;
 		medoidIndices[k] = bestIndex;
+		boolean medoid[] = new boolean[numInstances];
+		medoid[bestIndex] = true;
+
+		// Dj is the distance of j to its nearest medoid
+		double D[] = new double[numInstances];
+		for (int j = 0; j < numInstances; j++)
+			D[j] = distancesMatrix[j][bestIndex];
 
 		for (k = 1; k < numClusters; k++) {
 
 			double gain[] = new double[numInstances];
-			Arrays.fill(gain, 0);
-
-			for (int i = 0; i < numInstances; i++) {
-				if (!isMedoid(i)) {
-
+			Utils.parallelFor(numInstances, pool, i -> {
+				if (!medoid[i]) {
+					double gain_i = 0;
 					for (int j = 0; j < numInstances; j++) {
-						if (!isMedoid(j) && j != i) {
-
-							// Dj is the mimimal distance of j to the centroids
-							double Dj = distancesMatrix[j][medoidIndices[0]];
-							for (int c = 1; c < k; c++)
-								if (compare(Dj, distancesMatrix[j][c])) {
-									Dj = distancesMatrix[j][c];
-								}
-
-							if (!(compare(Dj, distancesMatrix[i][j]))) {
-								gain[i] += Math.abs(Dj - distancesMatrix[i][j]);
-								;
-							}
-
-						} // if !isMedoid(j)
-					} // for j
-				} // if !isMedoid(i)
-			} // for i
+						if (!medoid[j] && j != i && !(compare(D[j], distancesMatrix[i][j])))
+							gain_i += Math.abs(D[j] - distancesMatrix[i][j]);
+					}
+					gain[i] = gain_i;
+				}
+			});
 
 			// Select as medoid the instance i that maximizes gain
-			bestIndex = 0;
-			for (int i = 1; i < numInstances; i++) {
-				if (!isMedoid(i) && gain[i] > gain[bestIndex])
+			bestIndex = -1;
+			for (int i = 0; i < numInstances; i++) {
+				if (!medoid[i] && (bestIndex == -1 || gain[i] > gain[bestIndex]))
 					bestIndex = i;
 			}
 			medoidIndices[k] = bestIndex;
+			medoid[bestIndex] = true;
+
+			for (int j = 0; j < numInstances; j++) {
+				if (!(compare(D[j], distancesMatrix[j][bestIndex])))
+					D[j] = distancesMatrix[j][bestIndex];
+			}
 
 		} // for k
 
@@ -273,10 +351,37 @@ public class KMedoids extends RandomizableClusterer implements weka.clusterers.C
 
 		metric.setInstances(data);
 
-		// Initialization of distance matrix
+		medoidDistances = null;
+		pool = Utils.newPool(numThreads);
+		try {
+			if (sampleSize > 0 && sampleSize < numInstances) {
+				claraClustering(data);
+			} else {
+				// Initialization of distance matrix
+				distancesMatrix = new double[numInstances][numInstances];
+				computeDistances(data);
+				configurationCost = pam();
+			}
+		} finally {
+			if (pool != null)
+				pool.shutdownNow();
+			pool = null;
+		}
 
-		distancesMatrix = new double[numInstances][numInstances];
-		computeDistances(data);
+		// Sets the array with the medoid instances
+		medoidInstances = new Instance[numClusters];
+		for (int k = 0; k < numClusters; k++)
+			medoidInstances[k] = data.instance(medoidIndices[k]);
+	}
+
+	/**
+	 * Performs the BUILD and SWAP steps of PAM on the instances of the distance
+	 * matrix and sets the number of iterations performed.
+	 * 
+	 * @return The cost of the final configuration.
+	 * @throws Exception To be handled in an upper level.
+	 */
+	protected double pam() throws Exception {
 
 		// BUILD STEP. Initialization of medoids.
 		medoidIndices = new int[numClusters];
@@ -292,53 +397,369 @@ public class KMedoids extends RandomizableClusterer implements weka.clusterers.C
 		double cost = computeCost(clusterAssignment);
 
 		// SWAP STEP
-		boolean change = true;
 		int count = 0;
-		while (change && count < maxIterations) {
+		if (fasterPAM) {
+			count = fasterPAMSwap();
+			clusterAssignment = assignInstancesToMedoids(medoidIndices);
+			cost = computeCost(clusterAssignment);
+		} else {
+			boolean change = true;
+			while (change && count < maxIterations) {
+
+				change = false;
+
+				// for each medoid k
+				for (int k = 0; k < medoidIndices.length; k++) {
+
+					int oldMedoid = medoidIndices[k];
+
+					// for each instance i not medoid
+					for (int i = 0; i < numInstances; i++) {
+
+						if (!isMedoid(i)) {
+
+							// Considers swaps the medoid and the instance
+							medoidIndices[k] = i;
+							int[] candidateAsignment = assignInstancesToMedoids(medoidIndices);
+							double candidateCost = computeCost(candidateAsignment);
+
+							if (compare(candidateCost, cost)) {
+								// the configuration is better and the change is accepted
+								clusterAssignment = candidateAsignment.clone();
+								cost = candidateCost;
+								change = true;
+							} else {
+								// the change is not accepted
+								medoidIndices[k] = oldMedoid;
+							}
+						}
 
-			change = false;
+					} // for each instance i not medoid
 
-			// for each medoid k
-			for (int k = 0; k < medoidIndices.length; k++) {
+				} // for each medoid k
+				count++;
+			}
+		}
 
-				int oldMedoid = medoidIndices[k];
+		this.numIterations = count;
+		// System.out.println("\nFinal configuration cost: " + cost + " Iterations: " +
+		// count);
+		return cost;
+	}
 
-				// for each instance i not medoid
-				for (int i = 0; i < data.numInstances(); i++) {
+	/**
+	 * Performs clustering with CLARA [3]. PAM is applied to numSamples random
+	 * samples of sampleSize instances, each sample including the best medoids found
+	 * so far. The medoids of each sample are evaluated by assigning every instance
+	 * of the dataset to them, and the medoids with the lowest cost are kept. Only
+	 * the distances within each sample and those between instances and the
+	 * candidate medoids are computed, so the full distance matrix is never built.
+	 * 
+	 * @param data The dataset.
+	 * @throws Exception To be handled in an upper level.
+	 */
+	protected void claraClustering(Instances data) throws Exception {
+
+		int n = numInstances;
+		int m = Math.min(n, Math.max(sampleSize, numClusters));
+		Random rg = new Random(getSeed());
+
+		// The first distance initializes the metric before sharing it among threads
+		metric.distance(data.instance(0), data.instance(0));
+		knownDistances = null;
+		knownColumns = null;
+
+		int[] bestMedoids = null;
+		double[][] bestDistances = null;
+		double bestCost = 0;
+		int iterations = 0;
+
+		for (int s = 0; s < numSamples; s++) {
+
+			// Random sample including the best medoids so far
+			boolean[] chosen = new boolean[n];
+			int[] sample = new int[m];
+			int size = 0;
+			if (bestMedoids != null) {
+				for (int medoid : bestMedoids) {
+					chosen[medoid] = true;
+					sample[size++] = medoid;
+				}
+			}
+			while (size < m) {
+				int random = rg.nextInt(n);
+				if (!chosen[random]) {
+					chosen[random] = true;
+					sample[size++] = random;
+				}
+			}
+			Arrays.sort(sample);
+
+			// PAM on the sample
+			numInstances = m;
+			double[][] sampleDistances = new double[m][m];
+			Utils.parallelFor(m, pool, i -> {
+				for (int j = i + 1; j < m; j++) {
+					double dist = distance(data, sample[i], sample[j]);
+					sampleDistances[i][j] = dist;
+					sampleDistances[j][i] = dist;
+				}
+			});
+			distancesMatrix = sampleDistances;
+			pam();
+			iterations += numIterations;
+			numInstances = n;
+
+			int[] medoids = new int[numClusters];
+			for (int k = 0; k < numClusters; k++)
+				medoids[k] = sample[medoidIndices[k]];
+
+			// Evaluation of the medoids on the whole dataset
+			double[][] toMedoids = new double[n][numClusters];
+			double[] costs = new double[n];
+			Utils.parallelFor(n, pool, i -> {
+				for (int k = 0; k < numClusters; k++)
+					toMedoids[i][k] = distance(data, i, medoids[k]);
+				costs[i] = toMedoids[i][nearestMedoid(toMedoids[i], i, medoids)];
+			});
+			double cost = 0;
+			for (int i = 0; i < n; i++)
+				cost += costs[i];
+
+			if (bestMedoids == null || (minimize ? cost < bestCost : cost > bestCost)) {
+				bestMedoids = medoids;
+				bestDistances = toMedoids;
+				bestCost = cost;
+
+				// the distances to the best medoids are reused in the next samples
+				if (cacheDistances) {
+					knownColumns = new int[n];
+					Arrays.fill(knownColumns, -1);
+					for (int k = 0; k < numClusters; k++)
+						knownColumns[bestMedoids[k]] = k;
+					knownDistances = bestDistances;
+				}
+			}
+		}
 
-					if (!isMedoid(i)) {
+		distancesMatrix = null;
+		knownDistances = null;
+		knownColumns = null;
+		medoidIndices = bestMedoids;
+		medoidDistances = bestDistances;
+		clusterAssignment = new int[n];
+		for (int i = 0; i < n; i++)
+			clusterAssignment[i] = nearestMedoid(medoidDistances[i], i, medoidIndices);
+		configurationCost = bestCost;
+		numIterations = iterations;
+	}
 
-						// Considers swaps the medoid and the instance
-						medoidIndices[k] = i;
-						int[] candidateAsignment = assignInstancesToMedoids(medoidIndices);
-						double candidateCost = computeCost(candidateAsignment);
+	/**
+	 * Returns the medoid assigned to an instance given its distances to the
+	 * medoids. Medoids are assigned to themselves.
+	 * 
+	 * @param distances     The distances of the instance to each medoid.
+	 * @param instanceIndex The index of the instance.
+	 * @param medoids       The indices of the medoids.
+	 * @return The index of the medoid assigned, a value in (0, nClusters-1).
+	 */
+	protected int nearestMedoid(double[] distances, int instanceIndex, int[] medoids) {
+		int best = 0;
+		for (int k = 0; k < medoids.length; k++) {
+			if (medoids[k] == instanceIndex)
+				return k;
+			if (k > 0 && compare(distances[k], distances[best]))
+				best = k;
+		}
+		return best;
+	}
 
-						if (compare(candidateCost, cost)) {
-							// the configuration is better and the change is accepted
-							clusterAssignment = candidateAsignment.clone();
-							cost = candidateCost;
-							change = true;
-						} else {
-							// the change is not accepted
-							medoidIndices[k] = oldMedoid;
-						}
-					}
+	/**
+	 * Returns the distance between two instances of the dataset, computing it on
+	 * demand unless one of them is one of the best medoids found so far by CLARA
+	 * and cacheDistances is true, in which case it is read from knownDistances.
+	 * 
+	 * @param data The dataset.
+	 * @param i    The index of an instance.
+	 * @param j    The index of another instance.
+	 * @return The distance.
+	 * @throws Exception To be handled in an upper level.
+	 */
+	protected double distance(Instances data, int i, int j) throws Exception {
+		if (i == j)
+			return 0;
+
+		if (knownColumns != null) {
+			if (knownColumns[j] >= 0)
+				return knownDistances[i][knownColumns[j]];
+			if (knownColumns[i] >= 0)
+				return knownDistances[j][knownColumns[i]];
+		}
 
-				} // for each instance i not medoid
+		// as in computeDistances, the instance with the lowest index goes first
+		int first = Math.min(i, j);
+		int second = Math.max(i, j);
+		return metric.distance(data.instance(first), data.instance(second));
+	}
 
-			} // for each medoid k
-			count++;
+	/**
+	 * Performs the SWAP step of FasterPAM. For each instance the distances to its
+	 * nearest and second nearest medoids are kept, so the change of cost of
+	 * swapping a candidate with each of the k medoids is computed in a single pass
+	 * over the instances. Candidates are visited in order and the best swap of each
+	 * candidate is applied eagerly if it reduces the cost. Blocks of consecutive
+	 * candidates are evaluated in parallel by numThreads threads and the first
+	 * improving candidate of the block is applied, so the result is the same as
+	 * with a single thread. The step ends when no
+	 * candidate improves the configuration or after maxIterations passes over the
+	 * instances. If the metric is maximized, distances are negated.
+	 * 
+	 * @return The number of passes performed.
+	 * @throws Exception To be handled in an upper level.
+	 */
+	protected int fasterPAMSwap() throws Exception {
+
+		double sign = minimize ? 1 : -1;
+		int[] nearest = new int[numInstances];
+		double[] dNearest = new double[numInstances];
+		double[] dSecond = new double[numInstances];
+		double[] removalLoss = new double[numClusters];
+
+		updateNearest(sign, nearest, dNearest, dSecond, removalLoss);
+
+		// changes below this value are rounding errors and swaps between
+		// equivalent medoids would never end
+		double tolerance = 0;
+		for (int o = 0; o < numInstances; o++)
+			tolerance += Math.abs(dNearest[o]);
+		tolerance *= 1e-12;
+
+		// consecutive candidates are evaluated in parallel in blocks
+		int threads = Utils.resolveNumThreads(numThreads);
+		int blockSize = threads > 1 ? 4 * threads : 1;
+		int[] block = new int[blockSize];
+		double[][] delta = new double[blockSize][numClusters];
+		double[] change = new double[blockSize];
+		int[] best = new int[blockSize];
+
+		int passes = 0;
+		int lastSwap = -1;
+		int candidate = 0;
+		while (passes < maxIterations) {
+
+			if (candidate == lastSwap)
+				break;
+
+			// candidates until the end of the pass or the last swap
+			int size = 0;
+			for (int c = candidate; size < blockSize && c < numInstances && (size == 0 || c != lastSwap); c++)
+				block[size++] = c;
+
+			Utils.parallelFor(size, pool, b -> {
+				change[b] = Double.POSITIVE_INFINITY;
+				if (!isMedoid(block[b])) {
+					double accumulated = swapChange(block[b], sign, nearest, dNearest, dSecond, removalLoss,
+							delta[b]);
+					best[b] = 0;
+					for (int k = 1; k < numClusters; k++)
+						if (delta[b][k] < delta[b][best[b]])
+							best[b] = k;
+					change[b] = delta[b][best[b]] + accumulated;
+				}
+			});
+
+			// the first improving candidate is applied, as in a sequential pass
+			candidate = block[size - 1] + 1;
+			for (int b = 0; b < size; b++) {
+				if (change[b] < -tolerance) {
+					medoidIndices[best[b]] = block[b];
+					updateNearest(sign, nearest, dNearest, dSecond, removalLoss);
+					lastSwap = block[b];
+					candidate = block[b] + 1;
+					break;
+				}
+			}
+
+			if (candidate == numInstances) {
+				candidate = 0;
+				passes++;
+				if (lastSwap == -1)
+					break;
+			}
 		}
+		return passes;
+	}
 
-		// Sets the array with the medoid instances
-		medoidInstances = new Instance[numClusters];
-		for (int k = 0; k < numClusters; k++)
-			medoidInstances[k] = data.instance(medoidIndices[k]);
+	/**
+	 * Computes the change of cost of swapping a candidate with each medoid.
+	 * 
+	 * @param candidate   The index of the candidate instance.
+	 * @param sign        1 if the metric is minimized and -1 otherwise.
+	 * @param nearest     The index of the nearest medoid of each instance.
+	 * @param dNearest    The distance of each instance to its nearest medoid.
+	 * @param dSecond     The distance of each instance to its second nearest
+	 *                    medoid.
+	 * @param removalLoss The increase of cost of removing each medoid.
+	 * @param delta       Array where the change of cost, except for the
+	 *                    instances reassigned to the candidate, of swapping the
+	 *                    candidate with each medoid is stored.
+	 * @return The change of cost due to the instances reassigned to the candidate,
+	 *         that must be added to every element of delta.
+	 */
+	protected double swapChange(int candidate, double sign, int[] nearest, double[] dNearest, double[] dSecond,
+			double[] removalLoss, double[] delta) {
+
+		System.arraycopy(removalLoss, 0, delta, 0, numClusters);
+		double accumulated = 0;
+		for (int o = 0; o < numInstances; o++) {
+			double d = sign * distancesMatrix[o][candidate];
+			if (d < dNearest[o]) {
+				// o would be reassigned to the candidate
+				accumulated += d - dNearest[o];
+				delta[nearest[o]] += dNearest[o] - dSecond[o];
+			} else if (d < dSecond[o]) {
+				// o would go to the candidate if its nearest medoid is removed
+				delta[nearest[o]] += d - dSecond[o];
+			}
+		}
+		return accumulated;
+	}
 
-		this.configurationCost = cost;
-		this.numIterations = count;
-		// System.out.println("\nFinal configuration cost: " + cost + " Iterations: " +
-		// count);
+	/**
+	 * Updates, for each instance, the index of its nearest medoid and the distances
+	 * to its nearest and second nearest medoids, as well as the increase of cost of
+	 * removing each medoid.
+	 * 
+	 * @param sign        1 if the metric is minimized and -1 otherwise.
+	 * @param nearest     The index of the nearest medoid of each instance.
+	 * @param dNearest    The distance of each instance to its nearest medoid.
+	 * @param dSecond     The distance of each instance to its second nearest
+	 *                    medoid.
+	 * @param removalLoss The increase of cost of removing each medoid.
+	 */
+	protected void updateNearest(double sign, int[] nearest, double[] dNearest, double[] dSecond,
+			double[] removalLoss) {
+
+		Arrays.fill(removalLoss, 0);
+		for (int o = 0; o < numInstances; o++) {
+			int first = -1;
+			double d1 = Double.POSITIVE_INFINITY;
+			double d2 = Double.POSITIVE_INFINITY;
+			for (int k = 0; k < numClusters; k++) {
+				double d = sign * distancesMatrix[o][medoidIndices[k]];
+				if (d < d1) {
+					d2 = d1;
+					d1 = d;
+					first = k;
+				} else if (d < d2) {
+					d2 = d;
+				}
+			}
+			nearest[o] = first;
+			dNearest[o] = d1;
+			dSecond[o] = d2;
+			removalLoss[first] += d2 - d1;
+		}
 	}
 
 	/**
@@ -348,7 +769,12 @@ public class KMedoids extends RandomizableClusterer implements weka.clusterers.C
 	 * @throws Exception To be handled in an upper level.
 	 */
 	protected void computeDistances(Instances data) throws Exception {
-		for (int i = 0; i < data.numInstances(); i++) {
+
+		// The first distance initializes the metric before sharing it among threads
+		if (data.numInstances() > 0)
+			metric.distance(data.instance(0), data.instance(0));
+
+		Utils.parallelFor(data.numInstances(), pool, i -> {
 			// Diagonal elements have 0 value
 			distancesMatrix[i][i] = 0;
 
@@ -361,7 +787,7 @@ public class KMedoids extends RandomizableClusterer implements weka.clusterers.C
 				distancesMatrix[j][i] = dist;
 				// System.out.println("\nDistance[" + i + "][" + j + "]:"+dist);
 			}
-		}
+		});
 	}
 
 	/**
@@ -489,6 +915,9 @@ public class KMedoids extends RandomizableClusterer implements weka.clusterers.C
 			throw new Exception(
 					"The index must be >0 and <numInstances and the method has received an index of " + index);
 
+		if (medoidDistances != null)
+			return medoidDistances[index].clone();
+
 		double distances[] = new double[numClusters];
 
 		for (int k = 0; k < numClusters; k++) {
@@ -530,7 +959,7 @@ public class KMedoids extends RandomizableClusterer implements weka.clusterers.C
 	public int clusterInstance(Instance instance) throws Exception {
 
 		double[] evaluation = distributionForInstance(instance);
-		return Utils.maxIndex(evaluation);
+		return weka.core.Utils.maxIndex(evaluation);
 	}
 
 	// --------------------
@@ -633,6 +1062,106 @@ public class KMedoids extends RandomizableClusterer implements weka.clusterers.C
 		this.randomInitialization = randomInitialization;
 	}
 
+	/**
+	 * Gets whether the SWAP step is performed by FasterPAM or by the greedy
+	 * evaluation of every (medoid, non-medoid) swap.
+	 * 
+	 * @return A true value if FasterPAM is used.
+	 */
+	public boolean getFasterPAM() {
+		return fasterPAM;
+	}
+
+	/**
+	 * Sets whether the SWAP step is performed by FasterPAM or by the greedy
+	 * evaluation of every (medoid, non-medoid) swap. This method must be called
+	 * before clustering.
+	 * 
+	 * @param fasterPAM If true FasterPAM is used.
+	 */
+	public void setFasterPAM(boolean fasterPAM) {
+		this.fasterPAM = fasterPAM;
+	}
+
+	/**
+	 * Gets the number of instances of the samples used by CLARA.
+	 * 
+	 * @return The sample size, -1 if CLARA is not used.
+	 */
+	public int getSampleSize() {
+		return sampleSize;
+	}
+
+	/**
+	 * Sets the number of instances of the samples used by CLARA. This method must
+	 * be called before clustering.
+	 * 
+	 * @param sampleSize The sample size. If it is -1, PAM is applied to the whole
+	 *                   dataset.
+	 */
+	public void setSampleSize(int sampleSize) {
+		this.sampleSize = sampleSize;
+	}
+
+	/**
+	 * Gets the number of samples drawn by CLARA.
+	 * 
+	 * @return The number of samples.
+	 */
+	public int getNumSamples() {
+		return numSamples;
+	}
+
+	/**
+	 * Sets the number of samples drawn by CLARA. This method must be called before
+	 * clustering.
+	 * 
+	 * @param numSamples The number of samples.
+	 */
+	public void setNumSamples(int numSamples) {
+		this.numSamples = numSamples;
+	}
+
+	/**
+	 * Gets whether CLARA reuses the distances to the best medoids found so far.
+	 * 
+	 * @return A true value if distances are reused.
+	 */
+	public boolean getCacheDistances() {
+		return cacheDistances;
+	}
+
+	/**
+	 * Sets whether CLARA reuses the distances to the best medoids found so far.
+	 * This method must be called before clustering.
+	 * 
+	 * @param cacheDistances If true distances are reused.
+	 */
+	public void setCacheDistances(boolean cacheDistances) {
+		this.cacheDistances = cacheDistances;
+	}
+
+	/**
+	 * Gets the number of threads used to compute distances and to evaluate
+	 * candidate medoids.
+	 * 
+	 * @return The number of threads.
+	 */
+	public int getNumThreads() {
+		return numThreads;
+	}
+
+	/**
+	 * Sets the number of threads used to compute distances and to evaluate
+	 * candidate medoids. A value less than 1 means that all available processors
+	 * are used. This method must be called before clustering.
+	 * 
+	 * @param numThreads The number of threads.
+	 */
+	public void setNumThreads(int numThreads) {
+		this.numThreads = numThreads;
+	}
+
 	/**
 	 * Gets the assignment of instances to clusters. This method must be called
 	 * after clustering.
@@ -666,7 +1195,8 @@ public class KMedoids extends RandomizableClusterer implements weka.clusterers.C
 
 	/**
 	 * Returns a matrix the distances between all instances being distances[i][j]
-	 * the distance between the instances with indices i and j.
+	 * the distance between the instances with indices i and j. If CLARA has been
+	 * used the matrix is not computed and null is returned.
 	 * 
 	 * @return double[][]
 	 */
@@ -0,0 +1,370 @@
+/*    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 2 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program; if not, write to the Free Software
+ *    Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package miml.clusterers;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import weka.clusterers.RandomizableClusterer;
+import weka.core.Capabilities;
+import weka.core.Capabilities.Capability;
+import weka.core.DenseInstance;
+import weka.core.Instance;
+import weka.core.Instances;
+
+/**
+ * Class implementing the mini-batch k-means algorithm [1]. Instead of
+ * assigning every instance in each iteration, each iteration draws a random
+ * batch of instances and moves their nearest centroids towards them with a
+ * per-centroid learning rate. Instances are stored in a flat array of doubles
+ * (row-major) rather than as Weka instances. As in SimpleKMeans, attributes are
+ * normalized by their range when computing distances and missing values are
+ * replaced by the mean of the attribute.
+ *
+ * [1] <em> Sculley, D. (2010). Web-scale k-means clustering. In Proceedings of
+ * the 19th International Conference on World Wide Web (pp. 1177-1178).</em>
+ *
+ * @author Eva Gibaja
+ * @version 20261019
+ */
+public class MiniBatchKMeans extends RandomizableClusterer {
+
+	/** For serialization. */
+	private static final long serialVersionUID = 3523180839587614752L;
+
+	/** Number of clusters to generate. By default 2 clusters. */
+	protected int numClusters = 2;
+
+	/** Number of instances in each batch. By default 100 instances. */
+	protected int batchSize = 100;
+
+	/** The number of iterations (batches) to run. By default 100 iterations. */
+	protected int maxIterations = 100;
+
+	/** Whether attributes are not normalized by their range. */
+	protected boolean dontNormalize = false;
+
+	/** Number of attributes of each instance. */
+	protected int numAttributes;
+
+	/** Centroids stored in a flat array of numClusters x numAttributes. */
+	protected double[] centroids;
+
+	/** Weight of each attribute in the squared Euclidean distance. */
+	protected double[] weights;
+
+	/** Mean of each attribute, used to replace missing values. */
+	protected double[] means;
+
+	/** Header of the dataset used for clustering. */
+	protected Instances header;
+
+	/**
+	 * Creates a new instance of the mini-batch k-means algorithm with default
+	 * parameters.
+	 */
+	public MiniBatchKMeans() {
+		super();
+		m_SeedDefault = 1;
+		setSeed(m_SeedDefault);
+	}
+
+	/**
+	 * Creates a new instance of the mini-batch k-means algorithm with the specified
+	 * parameters.
+	 *
+	 * @param numClusters   The number of clusters to generate.
+	 * @param batchSize     The number of instances in each batch.
+	 * @param maxIterations The number of iterations (batches) to run.
+	 */
+	public MiniBatchKMeans(int numClusters, int batchSize, int maxIterations) {
+		this();
+		this.numClusters = numClusters;
+		this.batchSize = batchSize;
+		this.maxIterations = maxIterations;
+	}
+
+	/**
+	 * Converts a dataset of numeric attributes into a flat array of doubles
+	 * (row-major). Missing values are kept as NaN.
+	 *
+	 * @param data The dataset.
+	 * @return A flat array of numInstances x numAttributes.
+	 */
+	public static double[] flatten(Instances data) {
+		int n = data.numInstances();
+		int d = data.numAttributes();
+		double[] values = new double[n * d];
+		for (int i = 0; i < n; i++)
+			System.arraycopy(data.instance(i).toDoubleArray(), 0, values, i * d, d);
+		return values;
+	}
+
+	@Override
+	public void buildClusterer(Instances data) throws Exception {
+		getCapabilities().testWithFail(data);
+		buildClusterer(flatten(data), new Instances(data, 0));
+	}
+
+	/**
+	 * Performs clustering on a flat array of instances.
+	 *
+	 * @param values A flat array of numInstances x numAttributes (row-major) with
+	 *               missing values as NaN.
+	 * @param header A dataset with the attributes of the instances.
+	 * @throws Exception To be handled in an upper level.
+	 */
+	public void buildClusterer(double[] values, Instances header) throws Exception {
+
+		this.header = new Instances(header, 0);
+		numAttributes = header.numAttributes();
+		int numInstances = values.length / numAttributes;
+
+		if (numClusters > numInstances) {
+			System.out.println(
+					"The number of clusters must be less or equal to the number of instances. Setting nClusters="
+							+ numInstances);
+			numClusters = numInstances;
+		}
+
+		computeStatistics(values, numInstances);
+
+		// Random initialization of centroids with distinct instances
+		Random rg = new Random(getSeed());
+		centroids = new double[numClusters * numAttributes];
+		boolean[] selected = new boolean[numInstances];
+		for (int k = 0; k < numClusters; k++) {
+			int random = rg.nextInt(numInstances);
+			while (selected[random])
+				random = rg.nextInt(numInstances);
+			selected[random] = true;
+			for (int j = 0; j < numAttributes; j++)
+				centroids[k * numAttributes + j] = value(values, random * numAttributes, j);
+		}
+
+		// Mini-batch updates
+		long[] counts = new long[numClusters];
+		int size = Math.min(batchSize, numInstances);
+		int[] batch = new int[size];
+		int[] assignment = new int[size];
+		for (int iteration = 0; iteration < maxIterations; iteration++) {
+			for (int b = 0; b < size; b++) {
+				batch[b] = rg.nextInt(numInstances);
+				assignment[b] = nearestCentroid(values, batch[b] * numAttributes);
+			}
+			for (int b = 0; b < size; b++) {
+				int k = assignment[b];
+				counts[k]++;
+				double eta = 1.0 / counts[k];
+				int offset = batch[b] * numAttributes;
+				for (int j = 0; j < numAttributes; j++) {
+					int c = k * numAttributes + j;
+					centroids[c] += eta * (value(values, offset, j) - centroids[c]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Computes the mean and range of each attribute.
+	 *
+	 * @param values       A flat array of instances.
+	 * @param numInstances The number of instances.
+	 */
+	protected void computeStatistics(double[] values, int numInstances) {
+		means = new double[numAttributes];
+		weights = new double[numAttributes];
+		double[] min = new double[numAttributes];
+		double[] max = new double[numAttributes];
+		int[] count = new int[numAttributes];
+		Arrays.fill(min, Double.POSITIVE_INFINITY);
+		Arrays.fill(max, Double.NEGATIVE_INFINITY);
+
+		for (int i = 0; i < numInstances; i++) {
+			for (int j = 0; j < numAttributes; j++) {
+				double v = values[i * numAttributes + j];
+				if (Double.isNaN(v))
+					continue;
+				means[j] += v;
+				count[j]++;
+				if (v < min[j])
+					min[j] = v;
+				if (v > max[j])
+					max[j] = v;
+			}
+		}
+
+		for (int j = 0; j < numAttributes; j++) {
+			means[j] = count[j] > 0 ? means[j] / count[j] : 0;
+			double range = max[j] - min[j];
+			if (dontNormalize)
+				weights[j] = 1;
+			else
+				weights[j] = (count[j] > 0 && range > 0) ? 1.0 / (range * range) : 0;
+		}
+	}
+
+	/**
+	 * Returns the value of an attribute of an instance stored in a flat array,
+	 * replacing missing values with the mean of the attribute.
+	 *
+	 * @param values    A flat array of instances.
+	 * @param offset    The position of the instance in the array.
+	 * @param attribute The index of the attribute.
+	 * @return The value.
+	 */
+	protected double value(double[] values, int offset, int attribute) {
+		double v = values[offset + attribute];
+		return Double.isNaN(v) ? means[attribute] : v;
+	}
+
+	/**
+	 * Returns the index of the centroid nearest to an instance stored in a flat
+	 * array.
+	 *
+	 * @param values A flat array of instances.
+	 * @param offset The position of the instance in the array.
+	 * @return The index of the nearest centroid.
+	 */
+	protected int nearestCentroid(double[] values, int offset) {
+		int best = 0;
+		double bestDistance = Double.POSITIVE_INFINITY;
+		for (int k = 0; k < numClusters; k++) {
+			double distance = 0;
+			int c = k * numAttributes;
+			for (int j = 0; j < numAttributes && distance < bestDistance; j++) {
+				double diff = value(values, offset, j) - centroids[c + j];
+				distance += weights[j] * diff * diff;
+			}
+			if (distance < bestDistance) {
+				bestDistance = distance;
+				best = k;
+			}
+		}
+		return best;
+	}
+
+	@Override
+	public int clusterInstance(Instance instance) throws Exception {
+		return nearestCentroid(instance.toDoubleArray(), 0);
+	}
+
+	@Override
+	public int numberOfClusters() throws Exception {
+		return numClusters;
+	}
+
+	@Override
+	public Capabilities getCapabilities() {
+		Capabilities result = super.getCapabilities();
+		result.disableAll();
+		result.enable(Capability.NO_CLASS);
+		result.enable(Capability.NUMERIC_ATTRIBUTES);
+		result.enable(Capability.MISSING_VALUES);
+		return result;
+	}
+
+	/**
+	 * Gets the centroids obtained after performing clustering.
+	 *
+	 * @return A dataset with a centroid per instance.
+	 */
+	public Instances getClusterCentroids() {
+		Instances result = new Instances(header, numClusters);
+		for (int k = 0; k < numClusters; k++) {
+			double[] row = new double[numAttributes];
+			System.arraycopy(centroids, k * numAttributes, row, 0, numAttributes);
+			result.add(new DenseInstance(1.0, row));
+		}
+		return result;
+	}
+
+	// --------------------
+	// GETTERS AND SETTERS
+	// --------------------
+
+	/**
+	 * Gets the number of clusters.
+	 *
+	 * @return int
+	 */
+	public int getNumClusters() {
+		return numClusters;
+	}
+
+	/**
+	 * Sets the number of clusters.
+	 *
+	 * @param numClusters The number of clusters.
+	 */
+	public void setNumClusters(int numClusters) {
+		this.numClusters = numClusters;
+	}
+
+	/**
+	 * Gets the number of instances in each batch.
+	 *
+	 * @return int
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * Sets the number of instances in each batch.
+	 *
+	 * @param batchSize The number of instances in each batch.
+	 */
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Gets the number of iterations (batches) to run.
+	 *
+	 * @return int
+	 */
+	public int getMaxIterations() {
+		return maxIterations;
+	}
+
+	/**
+	 * Sets the number of iterations (batches) to run.
+	 *
+	 * @param maxIterations The number of iterations.
+	 */
+	public void setMaxIterations(int maxIterations) {
+		this.maxIterations = maxIterations;
+	}
+
+	/**
+	 * Gets whether attributes are not normalized by their range.
+	 *
+	 * @return boolean
+	 */
+	public boolean getDontNormalize() {
+		return dontNormalize;
+	}
+
+	/**
+	 * Sets whether attributes are not normalized by their range.
+	 *
+	 * @param dontNormalize True to use raw attribute values.
+	 */
+	public void setDontNormalize(boolean dontNormalize) {
+		this.dontNormalize = dontNormalize;
+	}
+}
@@ -15,7 +15,19 @@
 
 package miml.core;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.apache.commons.configuration2.Configuration;
 
 import weka.classifiers.AbstractClassifier;
@@ -36,6 +48,196 @@ import weka.filters.unsupervised.instance.Resample;
  */
 public final class Utils {
 
+	/**
+	 * A task to be run over an index in the range [0, n) by
+	 * {@link Utils#parallelFor(int, int, IndexedTask)}.
+	 */
+	@FunctionalInterface
+	public interface IndexedTask {
+
+		/**
+		 * Runs the task for a given index.
+		 * 
+		 * @param index The index to be processed.
+		 * @throws Exception To be handled in an upper level.
+		 */
+		void run(int index) throws Exception;
+	}
+
+	/**
+	 * The CPU time of the tasks run by parallelFor in other threads on behalf of
+	 * the current thread, or null if it is not measured. See
+	 * {@link #cpuTime(Callable)}.
+	 */
+	private static final ThreadLocal<AtomicLong> poolCpuTime = new ThreadLocal<AtomicLong>();
+
+	/**
+	 * Runs a task in the calling thread and measures the CPU time it uses. The CPU
+	 * time of the tasks it runs in other threads through
+	 * {@link #parallelFor(int, ExecutorService, IndexedTask)}, at any depth, is
+	 * included, so the result does not depend on other threads running at the same
+	 * time. Threads created by other means, e.g. inside Weka or Mulan, are not
+	 * measured.
+	 * 
+	 * @param task The task.
+	 * @return The CPU time in nanoseconds or -1 if the JVM does not measure the
+	 *         CPU time of threads.
+	 * @throws Exception The exception thrown by the task, if any.
+	 */
+	public static long cpuTime(Callable<?> task) throws Exception {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (!threads.isCurrentThreadCpuTimeSupported() || !threads.isThreadCpuTimeEnabled()) {
+			task.call();
+			return -1;
+		}
+
+		AtomicLong enclosing = poolCpuTime.get();
+		AtomicLong inner = new AtomicLong();
+		poolCpuTime.set(inner);
+		long start = threads.getCurrentThreadCpuTime();
+		try {
+			task.call();
+		} finally {
+			poolCpuTime.set(enclosing);
+		}
+		long own = threads.getCurrentThreadCpuTime() - start;
+		// The calling thread is measured by the enclosing measure but not the pools
+		if (enclosing != null)
+			enclosing.addAndGet(inner.get());
+		return own + inner.get();
+	}
+
+	/**
+	 * Runs a task for an index and adds the CPU time of the current thread to a
+	 * measure started by {@link #cpuTime(Callable)} in another thread.
+	 * 
+	 * @param task    The task.
+	 * @param index   The index.
+	 * @param measure The CPU time of the measure or null if it is not measured.
+	 * @throws Exception The exception thrown by the task, if any.
+	 */
+	private static void runMeasured(IndexedTask task, int index, AtomicLong measure) throws Exception {
+		if (measure == null) {
+			task.run(index);
+			return;
+		}
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		AtomicLong previous = poolCpuTime.get();
+		poolCpuTime.set(measure);
+		long start = threads.getCurrentThreadCpuTime();
+		try {
+			task.run(index);
+		} finally {
+			measure.addAndGet(threads.getCurrentThreadCpuTime() - start);
+			poolCpuTime.set(previous);
+		}
+	}
+
+	/**
+	 * Gets the number of threads to be used given a requested value.
+	 * 
+	 * @param numThreads The requested number of threads. A value less than 1 means
+	 *                   that all available processors are used.
+	 * @return The number of threads to be used.
+	 */
+	public static int resolveNumThreads(int numThreads) {
+		if (numThreads < 1)
+			return Runtime.getRuntime().availableProcessors();
+		return numThreads;
+	}
+
+	/**
+	 * Runs a task for each index in [0, n) on a fixed pool of threads. If just one
+	 * thread is used, the task is run sequentially in the calling thread. The
+	 * method returns when all indices have been processed. Tasks must write their
+	 * results by index so that the output does not depend on the order of
+	 * execution.
+	 * 
+	 * @param n          The number of indices.
+	 * @param numThreads The number of threads. A value less than 1 means that all
+	 *                   available processors are used.
+	 * @param task       The task to be run for each index.
+	 * @throws Exception The first exception thrown by a task, if any.
+	 */
+	public static void parallelFor(int n, int numThreads, IndexedTask task) throws Exception {
+
+		int threads = Math.min(resolveNumThreads(numThreads), n);
+
+		if (threads <= 1) {
+			for (int i = 0; i < n; i++)
+				task.run(i);
+			return;
+		}
+
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			parallelFor(n, pool, task);
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Creates a fixed pool of threads to be reused by several calls to
+	 * {@link #parallelFor(int, ExecutorService, IndexedTask)}. The caller must shut
+	 * it down.
+	 * 
+	 * @param numThreads The number of threads. A value less than 1 means that all
+	 *                   available processors are used.
+	 * @return The pool or null if just one thread is used.
+	 */
+	public static ExecutorService newPool(int numThreads) {
+		int threads = resolveNumThreads(numThreads);
+		return threads <= 1 ? null : Executors.newFixedThreadPool(threads);
+	}
+
+	/**
+	 * Runs a task for each index in [0, n) on a given pool of threads, as
+	 * {@link #parallelFor(int, int, IndexedTask)} does, but without creating a
+	 * pool on each call. If the pool is null, the task is run sequentially in the
+	 * calling thread. Tasks must not call this method with the same pool.
+	 * 
+	 * @param n    The number of indices.
+	 * @param pool The pool of threads or null.
+	 * @param task The task to be run for each index.
+	 * @throws Exception The first exception thrown by a task, if any.
+	 */
+	public static void parallelFor(int n, ExecutorService pool, IndexedTask task) throws Exception {
+
+		if (pool == null || n <= 1) {
+			for (int i = 0; i < n; i++)
+				task.run(i);
+			return;
+		}
+
+		// tasks add their CPU time to the measure of the calling thread, if any
+		AtomicLong measure = poolCpuTime.get();
+		List<Future<Void>> futures = new ArrayList<Future<Void>>(n);
+		try {
+			for (int i = 0; i < n; i++) {
+				final int index = i;
+				futures.add(pool.submit(() -> {
+					runMeasured(task, index, measure);
+					return null;
+				}));
+			}
+			for (Future<Void> future : futures) {
+				try {
+					future.get();
+				} catch (ExecutionException e) {
+					Throwable cause = e.getCause();
+					if (cause instanceof Exception)
+						throw (Exception) cause;
+					throw e;
+				}
+			}
+		} finally {
+			// tasks of a failed call are not left running on the shared pool
+			for (Future<Void> future : futures)
+				future.cancel(true);
+		}
+	}
+
 	/**
 	 * Obtains a sample of the original data.
 	 *
@@ -65,6 +267,70 @@ public final class Utils {
 		return resampled;
 	}
 
+	/**
+	 * Obtains the indices of a sample of the original data. The sample is the same
+	 * obtained by {@link #resample(Instances, double, boolean, int)} with the same
+	 * arguments, but no instance is copied.
+	 *
+	 * @param numInstances          The number of instances of the original data.
+	 * @param percentage            percentage of instances that will contain the
+	 *                              sample.
+	 * @param sampleWithReplacement If true the sampling will be with replacement.
+	 * @param seed                  Seed for randomization.
+	 * 
+	 * @return The indices of the sampled instances. Without replacement, indices
+	 *         are sorted in increasing order.
+	 */
+	public static int[] resampleIndices(int numInstances, double percentage, boolean sampleWithReplacement,
+			int seed) {
+
+		int sampleSize = (int) (numInstances * percentage / 100.0);
+		Random random = new Random(seed);
+
+		if (sampleWithReplacement) {
+			int[] indices = new int[sampleSize];
+			for (int i = 0; i < sampleSize; i++)
+				indices[i] = random.nextInt(numInstances);
+			return indices;
+		}
+
+		if (sampleSize > numInstances)
+			sampleSize = numInstances;
+
+		// Draws without replacement from the remaining indices
+		int[] remaining = new int[numInstances];
+		for (int i = 0; i < numInstances; i++)
+			remaining[i] = i;
+		int numRemaining = numInstances;
+
+		int[] indices = new int[sampleSize];
+		for (int i = 0; i < sampleSize; i++) {
+			int index = random.nextInt(numRemaining);
+			indices[i] = remaining[index];
+			System.arraycopy(remaining, index + 1, remaining, index, numRemaining - index - 1);
+			numRemaining--;
+		}
+		Arrays.sort(indices);
+		return indices;
+	}
+
+	/**
+	 * Gets a view of some instances of a dataset. The view shares the header and
+	 * the values of the instances with the original data, so neither relational
+	 * values (i.e. bags) nor attribute values are copied until they are modified.
+	 *
+	 * @param data    Instances with the dataset.
+	 * @param indices The indices of the instances in the view. An index can be
+	 *                repeated.
+	 * @return Instances.
+	 */
+	public static Instances subset(Instances data, int[] indices) {
+		Instances subset = new Instances(data, indices.length);
+		for (int index : indices)
+			subset.add(data.instance(index));
+		return subset;
+	}
+
 	/**
 	 * Read the configuration parameters for a specific Multi Label classifier's
 	 * constructor
@@ -88,6 +88,36 @@ public class AverageHausdorff extends HausdorffDistance {
 		return (sumU + sumV) / (first.size() + second.size());
 	}
 
+	@Override
+	protected double combine(double[] distances, int n1, int n2) {
+
+		double sumU = 0.0;
+		double[] minDistancesV = new double[n2];
+		Arrays.fill(minDistancesV, Double.MAX_VALUE);
+
+		for (int i = 0; i < n1; ++i) {
+
+			double minDistance = Double.MAX_VALUE;
+
+			for (int j = 0; j < n2; ++j) {
+
+				double distance = distances[i * n2 + j];
+
+				if (distance < minDistance)
+					minDistance = distance;
+
+				if (distance < minDistancesV[j])
+					minDistancesV[j] = distance;
+			}
+
+			sumU += minDistance;
+		}
+
+		double sumV = DoubleStream.of(minDistancesV).sum();
+
+		return (sumU + sumV) / (n1 + n2);
+	}
+
 	/*
 	 * PRUEBA PARA ASEGURARME QUE FUNCIONA BIEN LA FUNCIÓN DE DISTANCIA DE ARRIBA
 	 * public double distance(Instances first, Instances second) throws Exception {
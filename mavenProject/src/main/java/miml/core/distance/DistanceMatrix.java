@@ -0,0 +1,110 @@
+/*    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 2 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program; if not, write to the Free Software
+ *    Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package miml.core.distance;
+
+import java.util.IdentityHashMap;
+
+import miml.core.Utils;
+import miml.data.MIMLInstances;
+import weka.core.Instance;
+import weka.core.Instances;
+
+/**
+ * Distances between all pairs of bags of a dataset. Bags are identified by
+ * their relational value, which is shared by the copies of an instance made by
+ * Weka (i.e. resamples or subsets of the dataset). So, the distances between
+ * the bags of any sample of the dataset can be read from the matrix without
+ * computing them again.
+ *
+ * @author Eva Gibaja
+ * @version 20261019
+ */
+public class DistanceMatrix {
+
+	/** The dataset whose distances are stored. */
+	protected MIMLInstances data;
+
+	/** Distances between bags. Element (i, j) is the distance of bags i and j. */
+	protected double distances[][];
+
+	/** Position in the dataset of each bag, given its relational value. */
+	protected IdentityHashMap<Instances, Integer> positions;
+
+	/**
+	 * Computes the distances between all pairs of bags of a dataset. The metric is
+	 * initialized with the dataset before computing the distances.
+	 *
+	 * @param data       The dataset.
+	 * @param metric     The metric used to measure the distance between bags.
+	 * @param numThreads The number of threads used to compute the rows of the
+	 *                   matrix. A value less than 1 means that all available
+	 *                   processors are used.
+	 * @throws Exception If the distances can not be computed.
+	 */
+	public DistanceMatrix(MIMLInstances data, IDistance metric, int numThreads) throws Exception {
+		this.data = data;
+		int nBags = data.getNumBags();
+		Instances dataSet = data.getDataSet();
+
+		positions = new IdentityHashMap<Instances, Integer>(nBags);
+		for (int i = 0; i < nBags; i++)
+			positions.put(dataSet.instance(i).relationalValue(1), i);
+
+		metric.setInstances(data);
+		distances = new double[nBags][nBags];
+
+		// The first distance initializes the ranges of the metric before sharing it
+		distances[0][0] = metric.distance(dataSet.instance(0), dataSet.instance(0));
+
+		// Both triangles are computed, as some metrics are not symmetric (i.e.
+		// MaximalHausdorff is the directed Hausdorff distance)
+		Utils.parallelFor(nBags, numThreads, i -> {
+			Instance first = dataSet.instance(i);
+			for (int j = 0; j < nBags; j++)
+				distances[i][j] = metric.distance(first, dataSet.instance(j));
+		});
+	}
+
+	/**
+	 * Gets the position in the dataset of a bag.
+	 *
+	 * @param bag A bag of the dataset or a copy of it.
+	 * @return The position of the bag or -1 if it does not belong to the dataset.
+	 */
+	public int indexOf(Instance bag) {
+		Integer position = positions.get(bag.relationalValue(1));
+		return position == null ? -1 : position;
+	}
+
+	/**
+	 * Gets the distance between two bags of the dataset given their positions.
+	 *
+	 * @param i Position of the first bag.
+	 * @param j Position of the second bag.
+	 * @return The distance between the bags.
+	 */
+	public double distance(int i, int j) {
+		return distances[i][j];
+	}
+
+	/**
+	 * Gets the dataset whose distances are stored.
+	 *
+	 * @return The dataset.
+	 */
+	public MIMLInstances getData() {
+		return data;
+	}
+}
@@ -6,6 +6,7 @@ import weka.core.DistanceFunction;
 import weka.core.EuclideanDistance;
 import weka.core.Instance;
 import weka.core.Instances;
+import weka.core.NormalizableDistance;
 
 public abstract class HausdorffDistance implements IDistance {
 
@@ -26,6 +27,118 @@ public abstract class HausdorffDistance implements IDistance {
 		return (dfun.getInstances() != null);
 	}
 
+	/**
+	 * Gets a copy of the current ranges (min, max, width) of the attributes used
+	 * to normalize instances. Later updates of the distance do not modify it.
+	 *
+	 * @return The ranges of the attributes.
+	 * @throws Exception To be handled in upper level.
+	 */
+	public double[][] getRanges() throws Exception {
+		double[][] ranges = ((NormalizableDistance) dfun).getRanges();
+		double[][] copy = new double[ranges.length][];
+		for (int j = 0; j < ranges.length; j++)
+			copy[j] = ranges[j].clone();
+		return copy;
+	}
+
+	/**
+	 * Packs the instances of a bag into a flat array (row-major) of values
+	 * normalized with the given ranges, as EuclideanDistance does. Missing values
+	 * are kept as NaN.
+	 *
+	 * @param bag    The bag as Instances.
+	 * @param ranges The ranges of the attributes.
+	 * @return The packed bag.
+	 */
+	public static double[] pack(Instances bag, double[][] ranges) {
+		int nAttributes = ranges.length;
+		double[] packed = new double[bag.numInstances() * nAttributes];
+		for (int i = 0; i < bag.numInstances(); i++) {
+			Instance instance = bag.instance(i);
+			for (int j = 0; j < nAttributes; j++)
+				packed[i * nAttributes + j] = normalize(instance.value(j), ranges[j]);
+		}
+		return packed;
+	}
+
+	/**
+	 * Normalizes a value with the range of its attribute as EuclideanDistance
+	 * does. Missing values are kept as NaN and constant attributes are set to 0.
+	 *
+	 * @param value The value.
+	 * @param range The range (min, max, width) of the attribute.
+	 * @return The normalized value.
+	 */
+	public static double normalize(double value, double[] range) {
+		double min = range[NormalizableDistance.R_MIN];
+		if (Double.isNaN(value))
+			return value;
+		if (Double.isNaN(min) || range[NormalizableDistance.R_MAX] == min)
+			return 0;
+		return (value - min) / range[NormalizableDistance.R_WIDTH];
+	}
+
+	/**
+	 * Computes the difference between two normalized values as EuclideanDistance
+	 * does for numeric attributes, including missing values.
+	 *
+	 * @param first  A normalized value.
+	 * @param second Another normalized value.
+	 * @return The difference.
+	 */
+	public static double difference(double first, double second) {
+		if (Double.isNaN(first) || Double.isNaN(second)) {
+			if (Double.isNaN(first) && Double.isNaN(second))
+				return 1;
+			double diff = Double.isNaN(second) ? first : second;
+			return diff < 0.5 ? 1.0 - diff : diff;
+		}
+		return first - second;
+	}
+
+	/**
+	 * Gets the distance between two packed bags. The Euclidean distances between
+	 * all their instances are computed over the flat arrays and then combined as
+	 * the Hausdorff distance does. Attributes must be numeric.
+	 *
+	 * @param first       First packed bag.
+	 * @param second      Second packed bag.
+	 * @param nAttributes The number of attributes of the instances.
+	 * @return Distance between two bags.
+	 */
+	public double distance(double[] first, double[] second, int nAttributes) {
+		int n1 = first.length / nAttributes;
+		int n2 = second.length / nAttributes;
+		double[] distances = new double[n1 * n2];
+		for (int i = 0, idx = 0; i < n1; i++) {
+			int offset1 = i * nAttributes;
+			for (int j = 0; j < n2; j++, idx++) {
+				int offset2 = j * nAttributes;
+				double sum = 0;
+				for (int a = 0; a < nAttributes; a++) {
+					double diff = difference(first[offset1 + a], second[offset2 + a]);
+					sum += diff * diff;
+				}
+				distances[idx] = Math.sqrt(sum);
+			}
+		}
+		return combine(distances, n1, n2);
+	}
+
+	/**
+	 * Combines the distances between the instances of two bags into the distance
+	 * between the bags.
+	 *
+	 * @param distances The distances between instances, element i*n2+j is the
+	 *                  distance between instance i of the first bag and instance j
+	 *                  of the second one.
+	 * @param n1        Number of instances of the first bag.
+	 * @param n2        Number of instances of the second bag.
+	 * @return Distance between two bags.
+	 */
+	protected abstract double combine(double[] distances, int n1, int n2);
+
 	@Override
 	public double distance(MIMLBag first, MIMLBag second) throws Exception {
 
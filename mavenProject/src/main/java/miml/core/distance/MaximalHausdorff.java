@@ -74,4 +74,28 @@ public class MaximalHausdorff extends HausdorffDistance {
 		return finalDistance;
 	}
 
+	@Override
+	protected double combine(double[] distances, int n1, int n2) {
+
+		double finalDistance = -1.0;
+
+		for (int i = 0; i < n1; ++i) {
+
+			double minDistance = Double.MAX_VALUE;
+
+			for (int j = 0; j < n2; ++j) {
+
+				double distance = distances[i * n2 + j];
+
+				if (distance < minDistance)
+					minDistance = distance;
+			}
+
+			if (finalDistance < minDistance)
+				finalDistance = minDistance;
+		}
+
+		return finalDistance;
+	}
+
 }
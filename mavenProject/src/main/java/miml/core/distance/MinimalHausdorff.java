@@ -69,4 +69,17 @@ public class MinimalHausdorff extends HausdorffDistance {
 		return finalDistance;
 	}
 
+	@Override
+	protected double combine(double[] distances, int n1, int n2) {
+
+		double finalDistance = Double.MAX_VALUE;
+
+		for (int idx = 0; idx < n1 * n2; ++idx) {
+			if (distances[idx] < finalDistance)
+				finalDistance = distances[idx];
+		}
+
+		return finalDistance;
+	}
+
 }
@@ -16,6 +16,8 @@
 package miml.data;
 
 import java.util.ArrayList;
+
+import miml.core.Utils;
 import miml.data.partitioning.CrossValidationBase;
 import miml.data.partitioning.iterative.IterativeCrossValidation;
 import miml.data.partitioning.iterative.IterativeTrainTest;
@@ -456,29 +458,28 @@ public class MIMLInstances extends MultiLabelInstances {
 	public static MIMLInstances[][] roundsCV(MIMLInstances mimlDataSet, int nFolds, int seed,
 			int partitioningMethod) throws Exception {
 		
-		MultiLabelInstances[][] roundsML = null;
 		MIMLInstances[][] rounds = null;
-		CrossValidationBase engine;
+		CrossValidationBase engine = null;
 		switch (partitioningMethod) {
 		case 1:
 			engine = new RandomCrossValidation(mimlDataSet);
-			roundsML = engine.getRounds(nFolds);
 			break;
 		case 2:
 			engine = new LabelPowersetCrossValidation(mimlDataSet);
-			roundsML = engine.getRounds(nFolds);
 			break;
 		case 3:
 			engine = new IterativeCrossValidation(mimlDataSet);
-			roundsML = engine.getRounds(nFolds);
 			break;
 		}
 
+		// Rounds are views of the working set of the engine, bags are not copied
+		int[][][] indices = engine.getRoundIndices(nFolds);
+		MultiLabelInstances workingSet = engine.getWorkingSet();
 		rounds = new MIMLInstances[nFolds][2];
 		for (int i=0; i<nFolds; i++)
 		{
-			rounds[i][0] = new MIMLInstances(roundsML[i][0].getDataSet(), roundsML[i][0].getLabelsMetaData());  //train set for round i
-			rounds[i][1] = new MIMLInstances(roundsML[i][1].getDataSet(), roundsML[i][1].getLabelsMetaData());; //test set for round i
+			rounds[i][0] = new MIMLInstances(Utils.subset(workingSet.getDataSet(), indices[i][0]), workingSet.getLabelsMetaData());  //train set for round i
+			rounds[i][1] = new MIMLInstances(Utils.subset(workingSet.getDataSet(), indices[i][1]), workingSet.getLabelsMetaData()); //test set for round i
 		}	
 		return (rounds);
 	}
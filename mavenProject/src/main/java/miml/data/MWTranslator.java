@@ -18,13 +18,22 @@ package miml.data;
 import com.mathworks.toolbox.javabuilder.*;
 
 import weka.core.Instance;
+import weka.core.Instances;
 
 /**
  * 
- * Class to serve as interface between MIMLInstances and Matlab data types.
+ * Class to serve as interface between MIMLInstances and Matlab data types. The
+ * dataset is packed once into flat column-major arrays of double (the layout of
+ * Matlab arrays), so the transfer of data to the Matlab runtime is a bulk copy
+ * of these buffers.
+ * 
+ * A translator is stateful and not thread-safe: it keeps a packed copy of the
+ * whole dataset, so its memory is about the size of the dataset, and bags that
+ * do not belong to the dataset are packed into a single buffer shared by all
+ * calls. Each thread must use its own translator.
  * 
  * @author Eva Gibaja
- * @version 20211024
+ * @version 20261019
  */
 public class MWTranslator {
 
@@ -43,6 +52,25 @@ public class MWTranslator {
 	/** Array with the attribute indices corresponding to the labels */
 	int labelIndices[];
 
+	/**
+	 * Values of the bags. Element i contains the nInstxnAttributes values of the
+	 * ith bag in column-major order, i.e. value (j,k) is stored in position
+	 * k*nInst+j.
+	 */
+	double bagValues[][];
+
+	/** Number of instances of each bag. */
+	int bagSizes[];
+
+	/**
+	 * Label associations of all bags as a nLabelsxnBags array in column-major
+	 * order, i.e. value (k,i) is stored in position i*nLabels+k.
+	 */
+	double labelValues[];
+
+	/** Buffer reused to pack bags not belonging to the dataset. */
+	double bagBuffer[] = new double[0];
+
 	/**
 	 * Constructor.
 	 * 
@@ -54,6 +82,62 @@ public class MWTranslator {
 		this.attributesPerBag = mimlDataSet.getNumAttributesInABag();
 		this.nLabels = mimlDataSet.getMLDataSet().getNumLabels();
 		this.labelIndices = mimlDataSet.getLabelIndices();
+		pack();
+	}
+
+	/**
+	 * Packs the bags and the labels of the dataset into flat column-major arrays.
+	 */
+	protected void pack() {
+		Instances data = mimlDataSet.getDataSet();
+
+		bagValues = new double[nBags][];
+		bagSizes = new int[nBags];
+		labelValues = new double[nLabels * nBags];
+
+		// Index of the value "1" of each label attribute
+		int positive[] = new int[nLabels];
+		for (int k = 0; k < nLabels; k++)
+			positive[k] = data.attribute(labelIndices[k]).indexOfValue("1");
+
+		for (int i = 0; i < nBags; i++) {
+			Instance bag = data.instance(i);
+			Instances instances = bag.relationalValue(1);
+			bagSizes[i] = instances.numInstances();
+			bagValues[i] = new double[bagSizes[i] * attributesPerBag];
+			packBag(instances, bagValues[i]);
+
+			for (int k = 0; k < nLabels; k++)
+				labelValues[i * nLabels + k] = ((int) bag.value(labelIndices[k]) == positive[k]) ? 1 : -1;
+		}
+	}
+
+	/**
+	 * Copies the instances of a bag into a column-major array.
+	 * 
+	 * @param instances The instances of the bag.
+	 * @param values    An array with at least nInst*nAttributes elements.
+	 */
+	protected void packBag(Instances instances, double values[]) {
+		int nInst = instances.numInstances();
+		for (int j = 0; j < nInst; j++) {
+			Instance instance = instances.instance(j);
+			for (int k = 0; k < attributesPerBag; k++)
+				values[k * nInst + j] = instance.value(k);
+		}
+	}
+
+	/**
+	 * Returns a MWNumericArray of double with the given dimensions and values.
+	 * 
+	 * @param nRows  Number of rows.
+	 * @param nCols  Number of columns.
+	 * @param values The values in column-major order.
+	 * @return A nRowsxnCols MWNumericArray.
+	 */
+	protected static MWNumericArray toMWArray(int nRows, int nCols, double values[]) {
+		int dims[] = { nRows, nCols };
+		return MWNumericArray.newInstance(dims, values, MWClassID.DOUBLE);
 	}
 
 	/**
@@ -71,22 +155,13 @@ public class MWTranslator {
 
 		MWCellArray aCellArrayIn = new MWCellArray(nBags, 1);
 
+		int index[] = new int[2];
+		index[1] = 1;
 		for (int i = 0; i < nBags; i++) {
-
-			MIMLBag bag = mimlDataSet.getBag(i);
-			int nInst = bag.getNumInstances();
-
-			double[][] values = new double[nInst][attributesPerBag];
-			for (int j = 0; j < nInst; j++) {
-				Instance instance = bag.getInstance(j);
-				for (int k = 0; k < attributesPerBag; k++)
-					values[j][k] = instance.value(k);
-			}
-
-			int index[] = new int[2];
 			index[0] = (i + 1);
-			index[1] = 1;
+			MWNumericArray values = toMWArray(bagSizes[i], attributesPerBag, bagValues[i]);
 			aCellArrayIn.set(index, values);
+			values.dispose();
 		}
 
 		return aCellArrayIn;
@@ -105,22 +180,7 @@ public class MWTranslator {
 	 * @throws Exception To be handled.
 	 */
 	public MWNumericArray getLabels() throws Exception {
-
-		double[][] labelValues = new double[nLabels][nBags];
-
-		for (int i = 0; i < nBags; i++) {
-			MIMLBag bag = mimlDataSet.getBag(i);
-			for (int k = 0; k < nLabels; k++) {
-				if (bag.stringValue(labelIndices[k]).equals("1"))
-					labelValues[k][i] = 1;
-				else
-					labelValues[k][i] = -1;
-			}
-		}
-
-		MWNumericArray aQMDoubleArray = new MWNumericArray(labelValues, MWClassID.DOUBLE);
-
-		return aQMDoubleArray;
+		return toMWArray(nLabels, nBags, labelValues);
 	}
 
 	/**
@@ -135,19 +195,13 @@ public class MWTranslator {
 	public MWCellArray getBagAsCell(MIMLBag bag) throws Exception {
 
 		MWCellArray aCellArrayIn = new MWCellArray(1, 1);
-		int nInst = bag.getNumInstances();
-
-		double[][] values = new double[nInst][attributesPerBag];
-		for (int j = 0; j < nInst; j++) {
-			Instance instance = bag.getInstance(j);
-			for (int k = 0; k < attributesPerBag; k++)
-				values[j][k] = instance.value(k);
-		}
 
 		int indice[] = new int[2];
 		indice[0] = 1;
 		indice[1] = 1;
+		MWNumericArray values = getBagAsArray(bag);
 		aCellArrayIn.set(indice, values);
+		values.dispose();
 
 		return aCellArrayIn;
 	}
@@ -163,8 +217,16 @@ public class MWTranslator {
 	 */
 	public MWCellArray getBagAsCell(int index) throws Exception {
 
-		MIMLBag bag = mimlDataSet.getBag(index);
-		return getBagAsCell(bag);
+		MWCellArray aCellArrayIn = new MWCellArray(1, 1);
+
+		int indice[] = new int[2];
+		indice[0] = 1;
+		indice[1] = 1;
+		MWNumericArray values = getBagAsArray(index);
+		aCellArrayIn.set(indice, values);
+		values.dispose();
+
+		return aCellArrayIn;
 	}
 
 	/**
@@ -177,16 +239,15 @@ public class MWTranslator {
 	 * @throws Exception To be handled.
 	 */
 	public MWNumericArray getBagAsArray(MIMLBag bag) throws Exception {
-		int nInst = bag.getNumInstances();
-		double[][] values = new double[nInst][attributesPerBag];
-		for (int j = 0; j < nInst; j++) {
-			Instance instance = bag.getInstance(j);
-			for (int k = 0; k < attributesPerBag; k++)
-				values[j][k] = instance.value(k);
+		Instances instances = bag.getBagAsInstances();
+		int nInst = instances.numInstances();
 
-		}
-		MWNumericArray aDoubleArray = new MWNumericArray(values, MWClassID.DOUBLE);
-		return aDoubleArray;
+		// The buffer is reused while bags have the same size
+		if (bagBuffer.length != nInst * attributesPerBag)
+			bagBuffer = new double[nInst * attributesPerBag];
+		packBag(instances, bagBuffer);
+
+		return toMWArray(nInst, attributesPerBag, bagBuffer);
 	}
 
 	/**
@@ -197,9 +258,7 @@ public class MWTranslator {
 	 * @throws Exception To be handled.
 	 */
 	public MWNumericArray getBagAsArray(int index) throws Exception {
-
-		MIMLBag bag = mimlDataSet.getBag(index);
-		return getBagAsArray(bag);
+		return toMWArray(bagSizes[index], attributesPerBag, bagValues[index]);
 	}
 
 	/**
@@ -214,19 +273,16 @@ public class MWTranslator {
 	 */
 	public MWNumericArray getLabels(MIMLBag bag) throws Exception {
 
-		double[][] labelValues = new double[nLabels][1];
+		double[] values = new double[nLabels];
 
 		for (int k = 0; k < nLabels; k++) {
 			if (bag.stringValue(labelIndices[k]).equals("1"))
-				labelValues[k][0] = 1;
+				values[k] = 1;
 			else
-				labelValues[k][0] = -1;
-
+				values[k] = -1;
 		}
-		MWNumericArray aQMDoubleArray = new MWNumericArray(labelValues, MWClassID.DOUBLE);
-		System.out.println(aQMDoubleArray.toString());
 
-		return aQMDoubleArray;
+		return toMWArray(nLabels, 1, values);
 	}
 
 	/**
@@ -240,9 +296,30 @@ public class MWTranslator {
 	 * @throws Exception To be handled.
 	 */
 	public MWNumericArray getLabels(int index) throws Exception {
+		double[] values = new double[nLabels];
+		System.arraycopy(labelValues, index * nLabels, values, 0, nLabels);
+		return toMWArray(nLabels, 1, values);
+	}
 
-		MIMLBag bag = mimlDataSet.getBag(index);
-		return getLabels(bag);
+	/**
+	 * Returns the values of a bag of the dataset as a flat nInstxnAttributes array
+	 * in column-major order. The returned array must not be modified.
+	 * 
+	 * @param index The index of the bag in the MIMLInstances dataset.
+	 * @return The values of the bag.
+	 */
+	public double[] getBagValues(int index) {
+		return bagValues[index];
+	}
+
+	/**
+	 * Returns the number of instances of a bag of the dataset.
+	 * 
+	 * @param index The index of the bag in the MIMLInstances dataset.
+	 * @return The number of instances of the bag.
+	 */
+	public int getBagSize(int index) {
+		return bagSizes[index];
 	}
 
 }
@@ -15,13 +15,21 @@
  */
 package miml.data.partitioning;
 
+import java.nio.DoubleBuffer;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+
+import miml.core.Utils;
 import mulan.data.InvalidDataFormatException;
 import mulan.data.MultiLabelInstances;
 import weka.core.Instances;
 
 /**
  * General scheme for cross validation partitioners of multi-output data. MOR,
- * MIML and MVML formats are also supported.
+ * MIML and MVML formats are also supported. Folds and rounds can be obtained as
+ * arrays of indices of the instances of the working set, so that train and test
+ * sets are views that share the instances (i.e. bags) of the working set. They
+ * are only materialized as datasets on demand by {@link #view(int[])}.
  * 
  * @author Eva Gibaja
  * @version 20201029
@@ -58,8 +66,70 @@ public abstract class CrossValidationBase extends PartitionerBase {
 	 * @throws mulan.data.InvalidDataFormatException To be handled.
 	 */
 	public MultiLabelInstances[][] getRounds(int nFolds) throws Exception {
-		MultiLabelInstances Folds[] = getFolds(nFolds);
-		return foldsToRounds(Folds);
+		int[][][] rounds = getRoundIndices(nFolds);
+		MultiLabelInstances Partition[][] = new MultiLabelInstances[nFolds][2];
+		for (int i = 0; i < nFolds; i++) {
+			Partition[i][0] = view(rounds[i][0]);
+			Partition[i][1] = view(rounds[i][1]);
+		}
+		return Partition;
+	}
+
+	/**
+	 * Returns the indices of the instances of the working set in the train and test
+	 * sets of each fold.
+	 *
+	 * @param nFolds Number of folds.
+	 * @return int[][][] a nfolds x 2 matrix of indices. Each row represents a fold
+	 *         being column 0 the train set and the column 1 the test set.
+	 * @throws Exception To be handled.
+	 */
+	public int[][][] getRoundIndices(int nFolds) throws Exception {
+		return foldsToRounds(getFoldIndices(nFolds));
+	}
+
+	/**
+	 * Returns the indices of the instances of the working set in the train and test
+	 * sets of each fold given the indices of each fold. The train set of a fold is
+	 * the rest of folds in order.
+	 *
+	 * @param folds The indices of the instances of each fold.
+	 * @return int[][][] a nfolds x 2 matrix of indices. Each row represents a fold
+	 *         being column 0 the train set and the column 1 the test set.
+	 */
+	public static int[][][] foldsToRounds(int[][] folds) {
+		int nFolds = folds.length;
+		int total = 0;
+		for (int[] fold : folds)
+			total += fold.length;
+
+		int[][][] rounds = new int[nFolds][2][];
+		for (int i = 0; i < nFolds; i++) {
+			int[] train = new int[total - folds[i].length];
+			for (int j = 0, position = 0; j < nFolds; j++) {
+				if (j != i) {
+					System.arraycopy(folds[j], 0, train, position, folds[j].length);
+					position += folds[j].length;
+				}
+			}
+			rounds[i][0] = train;
+			rounds[i][1] = folds[i].clone();
+		}
+		return rounds;
+	}
+
+	/**
+	 * Returns a dataset with some instances of the working set. The dataset shares
+	 * the header and the values of the instances with the working set, so bags are
+	 * not copied.
+	 *
+	 * @param indices The indices of the instances of the working set.
+	 * @return MultiLabelInstances.
+	 * @throws InvalidDataFormatException To be handled.
+	 */
+	public MultiLabelInstances view(int[] indices) throws InvalidDataFormatException {
+		return new MultiLabelInstances(Utils.subset(workingSet.getDataSet(), indices),
+				workingSet.getLabelsMetaData());
 	}
 
 	/**
@@ -80,22 +150,25 @@ public abstract class CrossValidationBase extends PartitionerBase {
 		// maintained.
 		String relationName = Folds[0].getDataSet().relationName();
 
+		int total = 0;
+		for (int i = 0; i < nFolds; i++)
+			total += Folds[i].getNumInstances();
+
 		for (int i = 0; i < nFolds; i++) {
 			// Prepares test partition
 			Instances test = new Instances(Folds[i].getDataSet());
-			test.addAll(new Instances(Folds[i].getDataSet()));
 
-			// Prepares empty train partition
-			Instances train = new Instances(Folds[i].getDataSet(), 0);
+			// Prepares train partition with the rest of folds
+			Instances train = new Instances(Folds[i].getDataSet(), total - test.numInstances());
 			for (int j = 0; j < nFolds; j++) {
 				if (j != i)
-					train.addAll(new Instances(Folds[j].getDataSet()));
+					train.addAll(Folds[j].getDataSet());
 			}
 
-			Partition[i][0] = new MultiLabelInstances(new Instances(train), Folds[i].getLabelsMetaData());
+			Partition[i][0] = new MultiLabelInstances(train, Folds[i].getLabelsMetaData());
 			Partition[i][0].getDataSet().setRelationName(relationName);
 
-			Partition[i][1] = new MultiLabelInstances(new Instances(test), Folds[i].getLabelsMetaData());
+			Partition[i][1] = new MultiLabelInstances(test, Folds[i].getLabelsMetaData());
 			Partition[i][1].getDataSet().setRelationName(relationName);
 		}
 		return Partition;
@@ -111,6 +184,55 @@ public abstract class CrossValidationBase extends PartitionerBase {
 	 */
 	public abstract MultiLabelInstances[] getFolds(int nFolds) throws InvalidDataFormatException;
 
+	/**
+	 * Splits a dataset into nfolds partitions given by the indices of their
+	 * instances in the working set. By default, the indices are found by matching
+	 * the values of the instances of {@link #getFolds(int)} with the instances of
+	 * the working set.
+	 *
+	 * @param nFolds Number of folds.
+	 * @return int[][] the indices of the instances of each fold.
+	 * @throws mulan.data.InvalidDataFormatException To be handled.
+	 */
+	public int[][] getFoldIndices(int nFolds) throws InvalidDataFormatException {
+		MultiLabelInstances[] folds = getFolds(nFolds);
+		Instances data = workingSet.getDataSet();
+
+		// Positions in the working set of the instances with the same values. Bags
+		// share their relational value, so copies of a bag have equal values.
+		HashMap<DoubleBuffer, ArrayDeque<Integer>> positions = new HashMap<DoubleBuffer, ArrayDeque<Integer>>();
+		for (int i = 0; i < data.numInstances(); i++)
+			positions.computeIfAbsent(DoubleBuffer.wrap(data.instance(i).toDoubleArray()),
+					k -> new ArrayDeque<Integer>()).add(i);
+
+		int[][] indices = new int[folds.length][];
+		for (int f = 0; f < folds.length; f++) {
+			Instances fold = folds[f].getDataSet();
+			indices[f] = new int[fold.numInstances()];
+			for (int i = 0; i < fold.numInstances(); i++) {
+				ArrayDeque<Integer> candidates = positions.get(DoubleBuffer.wrap(fold.instance(i).toDoubleArray()));
+				if (candidates == null || candidates.isEmpty())
+					throw new InvalidDataFormatException(
+							"Instance " + i + " of fold " + f + " does not belong to the working set.");
+				indices[f][i] = candidates.poll();
+			}
+		}
+		return indices;
+	}
+
+	/**
+	 * Given the indices of the instances of each fold, prints the number of
+	 * examples of each fold.
+	 * 
+	 * @param folds The indices of the instances of each fold.
+	 */
+	protected void statsToString(int[][] folds) {
+		System.out.println("\tTotal examples: " + totalExamples());
+		System.out.println("\tNumber of folds: " + folds.length);
+		for (int f = 0; f < folds.length; f++)
+			System.out.println("\tFold " + f + ": " + folds[f].length + " examples");
+	}
+
 	protected void statsToString(MultiLabelInstances[] Partition) {
 		System.out.println("\tTotal examples: " + totalExamples());
 		System.out.println("\tNumber of folds: " + Partition.length);
@@ -65,6 +65,16 @@ public abstract class PartitionerBase {
 		this.seed = seed;
 	}
 
+	/**
+	 * Returns the randomized copy of the dataset from which partitions are
+	 * generated. Indices of partitions refer to its instances.
+	 * 
+	 * @return MultiLabelInstances
+	 */
+	public MultiLabelInstances getWorkingSet() {
+		return workingSet;
+	}
+
 	/**
 	 * Returns the number of examples of the dataset to be partitioned.
 	 * 
@@ -67,9 +67,18 @@ public class RandomCrossValidation extends CrossValidationBase {
 
 	@Override
 	public MultiLabelInstances[] getFolds(int nFolds) throws InvalidDataFormatException {
+		int[][] indices = getFoldIndices(nFolds);
+		MultiLabelInstances Folds[] = new MultiLabelInstances[nFolds];
+		for (int f = 0; f < nFolds; f++)
+			Folds[f] = view(indices[f]);
+		return Folds;
+	}
+
+	@Override
+	public int[][] getFoldIndices(int nFolds) throws InvalidDataFormatException {
 
-		// copy of original data
-		Instances dataSet = new Instances(workingSet.getDataSet());
+		// instances of the working set, it is not modified
+		Instances dataSet = workingSet.getDataSet();
 
 		// randomize dataset - DELETED - the working set has been randomized by constructor
 		//dataSet.randomize(new Random(seed));
@@ -146,15 +155,10 @@ public class RandomCrossValidation extends CrossValidationBase {
 			}
 		}
 
-		// All partitions will have the relation name of the original one.
-		// This allows multi-view definitions of data stored in @relation to be
-		// maintained.
-		String relationName = workingSet.getDataSet().relationName();
-		MultiLabelInstances Folds[] = new MultiLabelInstances[nFolds];
-		for (int f = 0; f < nFolds; f++) {
-			Folds[f] = new MultiLabelInstances(new Instances(dataSet, 0), workingSet.getLabelsMetaData());
-			Folds[f].getDataSet().setRelationName(relationName);
-		}
+		// Indices of the instances of each fold
+		ArrayList<ArrayList<Integer>> Folds = new ArrayList<ArrayList<Integer>>(nFolds);
+		for (int f = 0; f < nFolds; f++)
+			Folds.add(new ArrayList<Integer>());
 
 		// Instance indexes to assign to any fold
 		ArrayList<Integer> toAssign = new ArrayList<Integer>();
@@ -178,7 +182,7 @@ public class RandomCrossValidation extends CrossValidationBase {
 				// to avoid insert the same instance twice
 				if (list.contains(instanceIndex) == false) {
 
-					Folds[f].getDataSet().add(dataSet.instance(instanceIndex));
+					Folds.get(f).add(instanceIndex);
 					list.add(instanceIndex);
 					toAssign.remove(instanceIndex);
 					choosen[instanceIndex] = f;
@@ -191,11 +195,11 @@ public class RandomCrossValidation extends CrossValidationBase {
 		int patternsPerFold = (totalAssigned + toAssign.size()) / nFolds;
 		for (int f = 0; indextoAssign < toAssign.size(); f = (f + 1) % nFolds) {
 			// System.out.println("toAssign.size: "+toAssign.size()+" indexToAssign:
-			// "+indextoAssign+" f: "+f+" size[f]:"+Folds[f].getNumInstances());
+			// "+indextoAssign+" f: "+f+" size[f]:"+Folds.get(f).size());
 			// patternsPerFold+1 due to the offset
-			if (Folds[f].getNumInstances() < (patternsPerFold + 1)) {
+			if (Folds.get(f).size() < (patternsPerFold + 1)) {
 				int instanceIndex = toAssign.get(indextoAssign);
-				Folds[f].getDataSet().add(dataSet.instance(instanceIndex));
+				Folds.get(f).add(instanceIndex);
 				choosen[instanceIndex] = f;
 				totalAssigned++;
 				indextoAssign++;
@@ -204,7 +208,11 @@ public class RandomCrossValidation extends CrossValidationBase {
 
 		System.out.println("\nRandom CV partitioning:\n\tcurrentExamples/realExamples (may be duplicated): "
 				+ totalAssigned + "/" + numInstances);
-		statsToString(Folds);
+
+		int indices[][] = new int[nFolds][];
+		for (int f = 0; f < nFolds; f++)
+			indices[f] = Folds.get(f).stream().mapToInt(Integer::intValue).toArray();
+		statsToString(indices);
 
 		// Checking
 		/*
@@ -212,6 +220,6 @@ public class RandomCrossValidation extends CrossValidationBase {
 		 * (choosen[i] == -1) System.out.println("Instance " + i + " not choosen"); else
 		 * System.out.print(choosen[i] + ","); } System.out.println("]");
 		 */
-		return Folds;
+		return indices;
 	}
 }
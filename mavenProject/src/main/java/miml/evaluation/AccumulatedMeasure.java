@@ -0,0 +1,136 @@
+/*    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 2 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program; if not, write to the Free Software
+ *    Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package miml.evaluation;
+
+import java.io.Serializable;
+
+import mulan.classifier.MultiLabelOutput;
+import mulan.evaluation.GroundTruth;
+import mulan.evaluation.measure.MacroAverageMeasure;
+import mulan.evaluation.measure.Measure;
+
+/**
+ * Measure whose value is computed by a {@link MeasureAccumulator}. It has the
+ * same name and value as the corresponding mulan measure, so it can be used in a
+ * mulan Evaluation and in the reports. Each measure keeps its own accumulator,
+ * so it can also be updated with new predictions and reset as any other mulan
+ * measure.
+ *
+ * @author Eva Gibaja
+ * @version 20261019
+ */
+public class AccumulatedMeasure implements Measure, Serializable {
+
+	/** For serialization. */
+	private static final long serialVersionUID = 6184735046261803417L;
+
+	/** The name of the measure. */
+	protected String name;
+
+	/** The ideal value of the measure. */
+	protected double idealValue;
+
+	/** The statistics from which the value of the measure is computed. */
+	protected MeasureAccumulator accumulator;
+
+	/**
+	 * Creates a new measure.
+	 *
+	 * @param name        The name of the measure.
+	 * @param idealValue  The ideal value of the measure.
+	 * @param accumulator The statistics from which the value is computed. It is
+	 *                    updated by the measure, so it must not be shared.
+	 */
+	public AccumulatedMeasure(String name, double idealValue, MeasureAccumulator accumulator) {
+		this.name = name;
+		this.idealValue = idealValue;
+		this.accumulator = accumulator;
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public double getValue() {
+		return accumulator.getValue(name);
+	}
+
+	@Override
+	public double getIdealValue() {
+		return idealValue;
+	}
+
+	@Override
+	public void update(MultiLabelOutput prediction, GroundTruth truth) {
+		if ((accumulator.hasBipartitions() && !prediction.hasBipartition())
+				|| (accumulator.hasRankings() && !prediction.hasRanking()))
+			throw new IllegalArgumentException("The prediction has not the output needed by " + name + ".");
+		accumulator.update(prediction.getBipartition(), prediction.getRanking(), truth.getTrueLabels());
+	}
+
+	@Override
+	public Measure makeCopy() throws Exception {
+		return new AccumulatedMeasure(name, idealValue, accumulator.makeCopy());
+	}
+
+	@Override
+	public void reset() {
+		accumulator.reset();
+	}
+
+	@Override
+	public boolean handlesMissingValues() {
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		return name + ": " + String.format("%.4f", getValue());
+	}
+
+	/**
+	 * Macro-averaged measure, with the value of each label.
+	 */
+	public static class MacroAveraged extends AccumulatedMeasure implements MacroAverageMeasure {
+
+		/** For serialization. */
+		private static final long serialVersionUID = -3620841792254377106L;
+
+		/**
+		 * Creates a new macro-averaged measure.
+		 *
+		 * @param name        The name of the measure.
+		 * @param idealValue  The ideal value of the measure.
+		 * @param accumulator The statistics from which the value is computed. It is
+		 *                    updated by the measure, so it must not be shared.
+		 */
+		public MacroAveraged(String name, double idealValue, MeasureAccumulator accumulator) {
+			super(name, idealValue, accumulator);
+		}
+
+		@Override
+		public double getValue(int labelIndex) {
+			return accumulator.getValue(name, labelIndex);
+		}
+
+		@Override
+		public Measure makeCopy() throws Exception {
+			return new MacroAveraged(name, idealValue, accumulator.makeCopy());
+		}
+	}
+}
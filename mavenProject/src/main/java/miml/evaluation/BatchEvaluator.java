@@ -0,0 +1,274 @@
+/*    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 2 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program; if not, write to the Free Software
+ *    Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package miml.evaluation;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import miml.classifiers.miml.IMIMLClassifier;
+import miml.classifiers.miml.MIMLPredictions;
+import miml.data.MIMLInstances;
+import mulan.classifier.MultiLabelLearner;
+import mulan.classifier.MultiLabelOutput;
+import mulan.data.MultiLabelInstances;
+import mulan.evaluation.Evaluation;
+import mulan.evaluation.Evaluator;
+import mulan.evaluation.GroundTruth;
+import mulan.evaluation.measure.AverageMAE;
+import mulan.evaluation.measure.AveragePrecision;
+import mulan.evaluation.measure.AverageRMSE;
+import mulan.evaluation.measure.AverageRelativeMAE;
+import mulan.evaluation.measure.AverageRelativeRMSE;
+import mulan.evaluation.measure.Coverage;
+import mulan.evaluation.measure.ErrorSetSize;
+import mulan.evaluation.measure.ExampleBasedAccuracy;
+import mulan.evaluation.measure.ExampleBasedFMeasure;
+import mulan.evaluation.measure.ExampleBasedPrecision;
+import mulan.evaluation.measure.ExampleBasedRecall;
+import mulan.evaluation.measure.ExampleBasedSpecificity;
+import mulan.evaluation.measure.GeometricMeanAverageInterpolatedPrecision;
+import mulan.evaluation.measure.GeometricMeanAveragePrecision;
+import mulan.evaluation.measure.HammingLoss;
+import mulan.evaluation.measure.HierarchicalLoss;
+import mulan.evaluation.measure.IsError;
+import mulan.evaluation.measure.LogLoss;
+import mulan.evaluation.measure.MacroAUC;
+import mulan.evaluation.measure.MacroFMeasure;
+import mulan.evaluation.measure.MacroPrecision;
+import mulan.evaluation.measure.MacroRecall;
+import mulan.evaluation.measure.MacroSpecificity;
+import mulan.evaluation.measure.MeanAverageInterpolatedPrecision;
+import mulan.evaluation.measure.MeanAveragePrecision;
+import mulan.evaluation.measure.Measure;
+import mulan.evaluation.measure.MicroAUC;
+import mulan.evaluation.measure.MicroFMeasure;
+import mulan.evaluation.measure.MicroPrecision;
+import mulan.evaluation.measure.MicroRecall;
+import mulan.evaluation.measure.MicroSpecificity;
+import mulan.evaluation.measure.OneError;
+import mulan.evaluation.measure.RankingLoss;
+import mulan.evaluation.measure.SubsetAccuracy;
+import weka.core.Instance;
+import weka.core.Instances;
+
+/**
+ * Mulan's Evaluator that predicts all test bags of a MIML classifier at once
+ * with {@link IMIMLClassifier#makePredictions(MIMLInstances)} instead of one bag
+ * at a time. The measures and the way they are updated are the same as in
+ * mulan's Evaluator. Other learners are evaluated by mulan's Evaluator.
+ *
+ * @author Eva Gibaja
+ * @version 20261019
+ */
+public class BatchEvaluator extends Evaluator {
+
+	@Override
+	public Evaluation evaluate(MultiLabelLearner learner, MultiLabelInstances mlTestData,
+			MultiLabelInstances mlTrainData) throws IllegalArgumentException, Exception {
+		if (!(learner instanceof IMIMLClassifier) || mlTestData == null)
+			return super.evaluate(learner, mlTestData, mlTrainData);
+
+		MIMLPredictions predictions = ((IMIMLClassifier) learner).makePredictions(asMIML(mlTestData));
+		List<Measure> measures = prepareMeasures(predictions, mlTestData, mlTrainData);
+		return evaluate(predictions, mlTestData, measures);
+	}
+
+	@Override
+	public Evaluation evaluate(MultiLabelLearner learner, MultiLabelInstances mlTestData, List<Measure> measures)
+			throws Exception {
+		if (!(learner instanceof IMIMLClassifier) || mlTestData == null || measures == null)
+			return super.evaluate(learner, mlTestData, measures);
+
+		MIMLPredictions predictions = ((IMIMLClassifier) learner).makePredictions(asMIML(mlTestData));
+		return evaluate(predictions, mlTestData, measures);
+	}
+
+	/**
+	 * Evaluates the predictions of a dataset. As in mulan's Evaluator, measures
+	 * that fail are not updated any more and bags with missing labels only update
+	 * the measures that handle missing values.
+	 *
+	 * @param predictions The prediction of each bag of the dataset.
+	 * @param mlTestData  The dataset.
+	 * @param measures    The evaluation measures to compute.
+	 * @return The evaluation.
+	 * @throws Exception If the evaluation fails.
+	 */
+	public Evaluation evaluate(MIMLPredictions predictions, MultiLabelInstances mlTestData, List<Measure> measures)
+			throws Exception {
+		for (Measure m : measures) {
+			m.reset();
+		}
+
+		int numLabels = mlTestData.getNumLabels();
+		int[] labelIndices = mlTestData.getLabelIndices();
+		Set<Measure> failed = new HashSet<Measure>();
+		Instances testData = mlTestData.getDataSet();
+		for (int b = 0; b < testData.numInstances(); b++) {
+			Instance instance = testData.instance(b);
+			boolean hasMissingLabels = mlTestData.hasMissingLabels(instance);
+			MultiLabelOutput output = predictions.getOutput(b);
+			GroundTruth truth;
+			if (output.hasPvalues()) {
+				truth = new GroundTruth(getTrueScores(instance, numLabels, labelIndices));
+			} else {
+				truth = new GroundTruth(getTrueLabels(instance, numLabels, labelIndices));
+			}
+			for (Measure m : measures) {
+				if (failed.contains(m) || (hasMissingLabels && !m.handlesMissingValues()))
+					continue;
+				try {
+					m.update(output, truth);
+				} catch (Exception ex) {
+					failed.add(m);
+				}
+			}
+		}
+
+		return new Evaluation(measures, mlTestData);
+	}
+
+	/**
+	 * Gets the measures applicable to some predictions, the same ones that mulan's
+	 * Evaluator selects according to the prediction of the first bag.
+	 *
+	 * @param predictions The prediction of each bag of the test dataset.
+	 * @param mlTestData  The test dataset.
+	 * @param mlTrainData The train dataset.
+	 * @return The list of measures.
+	 */
+	protected List<Measure> prepareMeasures(MIMLPredictions predictions, MultiLabelInstances mlTestData,
+			MultiLabelInstances mlTrainData) {
+		if (predictions.getNumBags() == 0)
+			return new ArrayList<Measure>();
+		return prepareMeasures(predictions.getOutput(0), mlTestData, mlTrainData);
+	}
+
+	/**
+	 * Gets the measures applicable to a kind of prediction, the same ones that
+	 * mulan's Evaluator selects.
+	 *
+	 * @param prediction  A prediction of the learner.
+	 * @param mlTestData  The test dataset.
+	 * @param mlTrainData The train dataset.
+	 * @return The list of measures.
+	 */
+	public static List<Measure> prepareMeasures(MultiLabelOutput prediction, MultiLabelInstances mlTestData,
+			MultiLabelInstances mlTrainData) {
+		List<Measure> measures = new ArrayList<Measure>();
+		int numOfLabels = mlTestData.getNumLabels();
+		// bipartition-based measures
+		if (prediction.hasBipartition()) {
+			measures.add(new HammingLoss());
+			measures.add(new SubsetAccuracy());
+			measures.add(new ExampleBasedPrecision());
+			measures.add(new ExampleBasedRecall());
+			measures.add(new ExampleBasedFMeasure());
+			measures.add(new ExampleBasedAccuracy());
+			measures.add(new ExampleBasedSpecificity());
+			measures.add(new MicroPrecision(numOfLabels));
+			measures.add(new MicroRecall(numOfLabels));
+			measures.add(new MicroFMeasure(numOfLabels));
+			measures.add(new MicroSpecificity(numOfLabels));
+			measures.add(new MacroPrecision(numOfLabels));
+			measures.add(new MacroRecall(numOfLabels));
+			measures.add(new MacroFMeasure(numOfLabels));
+			measures.add(new MacroSpecificity(numOfLabels));
+		}
+		// ranking-based measures
+		if (prediction.hasRanking()) {
+			measures.add(new AveragePrecision());
+			measures.add(new Coverage());
+			measures.add(new OneError());
+			measures.add(new IsError());
+			measures.add(new ErrorSetSize());
+			measures.add(new RankingLoss());
+		}
+		// confidence measures
+		if (prediction.hasConfidences()) {
+			measures.add(new MeanAveragePrecision(numOfLabels));
+			measures.add(new GeometricMeanAveragePrecision(numOfLabels));
+			measures.add(new MeanAverageInterpolatedPrecision(numOfLabels, 10));
+			measures.add(new GeometricMeanAverageInterpolatedPrecision(numOfLabels, 10));
+			measures.add(new MicroAUC(numOfLabels));
+			measures.add(new MacroAUC(numOfLabels));
+			measures.add(new LogLoss());
+		}
+		// hierarchical measures
+		if (mlTestData.getLabelsMetaData().isHierarchy()) {
+			measures.add(new HierarchicalLoss(mlTestData));
+		}
+		// regression measures
+		if (prediction.hasPvalues()) {
+			measures.add(new AverageRMSE(numOfLabels));
+			measures.add(new AverageRelativeRMSE(numOfLabels, mlTrainData, mlTestData));
+			measures.add(new AverageMAE(numOfLabels));
+			measures.add(new AverageRelativeMAE(numOfLabels, mlTrainData, mlTestData));
+		}
+		return measures;
+	}
+
+	/**
+	 * Gets a dataset as {@link MIMLInstances}.
+	 *
+	 * @param data The dataset.
+	 * @return The same dataset if it is a MIMLInstances, otherwise a MIMLInstances
+	 *         over its instances.
+	 * @throws Exception If the dataset has not MIML format.
+	 */
+	protected static MIMLInstances asMIML(MultiLabelInstances data) throws Exception {
+		if (data instanceof MIMLInstances)
+			return (MIMLInstances) data;
+		return new MIMLInstances(data.getDataSet(), data.getLabelsMetaData());
+	}
+
+	/**
+	 * Gets the true labels of an instance.
+	 *
+	 * @param instance     The instance.
+	 * @param numLabels    The number of labels.
+	 * @param labelIndices The indices of the labels.
+	 * @return True for each label whose value is "1".
+	 */
+	protected static boolean[] getTrueLabels(Instance instance, int numLabels, int[] labelIndices) {
+		boolean[] trueLabels = new boolean[numLabels];
+		for (int j = 0; j < numLabels; j++) {
+			int classIdx = labelIndices[j];
+			String classValue = instance.attribute(classIdx).value((int) instance.value(classIdx));
+			trueLabels[j] = classValue.equals("1");
+		}
+		return trueLabels;
+	}
+
+	/**
+	 * Gets the true scores of an instance.
+	 *
+	 * @param instance     The instance.
+	 * @param numLabels    The number of labels.
+	 * @param labelIndices The indices of the labels.
+	 * @return The value of each label or NaN if it is missing.
+	 */
+	protected static double[] getTrueScores(Instance instance, int numLabels, int[] labelIndices) {
+		double[] trueScores = new double[numLabels];
+		for (int j = 0; j < numLabels; j++) {
+			int classIdx = labelIndices[j];
+			trueScores[j] = instance.isMissing(classIdx) ? Double.NaN : instance.value(classIdx);
+		}
+		return trueScores;
+	}
+}
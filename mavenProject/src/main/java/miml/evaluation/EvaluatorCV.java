@@ -25,18 +25,27 @@ import org.apache.commons.configuration2.Configuration;
 import miml.classifiers.miml.IMIMLClassifier;
 import miml.core.ConfigParameters;
 import miml.core.IConfiguration;
+import miml.core.Utils;
 import miml.data.MIMLInstances;
+import miml.data.partitioning.CrossValidationBase;
 import mulan.data.InvalidDataFormatException;
 import mulan.evaluation.Evaluation;
-import mulan.evaluation.Evaluator;
 import mulan.evaluation.MultipleEvaluation;
 import weka.core.Instances;
 
 /**
  * Class that allow evaluate an algorithm applying a cross-validation method
- * with random partitioning. This class uses weka.core.Instances.trainCV and
- * weka.core.Instances.testCV so there is not guarantee of having examples of
- * all labels in the partitioned data.
+ * with random partitioning. Folds are the same as those of
+ * weka.core.Instances.trainCV and weka.core.Instances.testCV so there is not
+ * guarantee of having examples of all labels in the partitioned data. Train and
+ * test sets are views of the shuffled data given by the indices of their bags,
+ * so bags are not copied. Folds can be run in parallel. Train and test times
+ * are always the wall-clock time of each fold. When folds run in parallel,
+ * these times include the delay caused by the other folds, so the train and
+ * test CPU time of each fold is measured too, see
+ * {@link Utils#cpuTime(java.util.concurrent.Callable)}.
+ * Optionally, measures are computed by a {@link StreamingEvaluator} without
+ * keeping all predictions.
  * 
  * @author Alvaro A. Belmonte
  * @author Eva Gibaja
@@ -63,6 +72,34 @@ public class EvaluatorCV implements IConfiguration, IEvaluator<MultipleEvaluatio
 	/** Test time in milliseconds. */
 	protected long testTime[];
 
+	/**
+	 * Train CPU time in milliseconds of each fold, including the threads of the
+	 * classifier, or -1 if the JVM does not measure it. It is only measured when
+	 * folds run in parallel, otherwise it is null.
+	 */
+	protected long trainCpuTime[];
+
+	/**
+	 * Test CPU time in milliseconds of each fold, including the threads of the
+	 * classifier, or -1 if the JVM does not measure it. It is only measured when
+	 * folds run in parallel, otherwise it is null.
+	 */
+	protected long testCpuTime[];
+
+	/**
+	 * The number of folds run in parallel. A value less than 1 means that all
+	 * available processors are used. By default 1.
+	 */
+	protected int parallelFolds = 1;
+
+	/**
+	 * The evaluator used to compute the measures without keeping all predictions
+	 * or null to evaluate with {@link BatchEvaluator}. By default null. It only
+	 * computes the 12 measures of {@link MeasureAccumulator}, so reports have
+	 * fewer measures than with {@link BatchEvaluator}.
+	 */
+	protected StreamingEvaluator streamingEvaluator = null;
+
 	/**
 	 * Instantiates a new CV evaluator.
 	 *
@@ -93,43 +130,53 @@ public class EvaluatorCV implements IConfiguration, IEvaluator<MultipleEvaluatio
 
 		trainTime = new long[numFolds];
 		testTime = new long[numFolds];
+		boolean parallel = Math.min(Utils.resolveNumThreads(parallelFolds), numFolds) > 1;
+		trainCpuTime = parallel ? new long[numFolds] : null;
+		testCpuTime = parallel ? new long[numFolds] : null;
 		Evaluation[] Evaluations = new Evaluation[numFolds];
 		Instances workingSet = new Instances(data.getDataSet());
 		workingSet.randomize(new Random(seed));
+		int[][][] rounds = CrossValidationBase.foldsToRounds(foldIndices(workingSet.numInstances()));
 
-		for (int i = 0; i < numFolds; i++)
-			try {
+		// A failed fold stops the cross-validation with its exception
+		Utils.parallelFor(numFolds, parallelFolds, i -> {
 
-				System.out.println("Fold " + (i + 1) + "/" + numFolds);
+			System.out.println("Fold " + (i + 1) + "/" + numFolds);
 
-				// gets train and test sets
-				Instances train = workingSet.trainCV(numFolds, i);
-				Instances test = workingSet.testCV(numFolds, i);
-				MIMLInstances mlTrain = new MIMLInstances(train, data.getLabelsMetaData());
-				MIMLInstances mlTest = new MIMLInstances(test, data.getLabelsMetaData());
+			// gets train and test sets
+			Instances train = Utils.subset(workingSet, rounds[i][0]);
+			Instances test = Utils.subset(workingSet, rounds[i][1]);
+			MIMLInstances mlTrain = new MIMLInstances(train, data.getLabelsMetaData());
+			MIMLInstances mlTest = new MIMLInstances(test, data.getLabelsMetaData());
 
-				// train step and gets the train time
-				IMIMLClassifier clone = classifier.makeCopy();
-				clone.setDebug(true);
-				long time_ini = System.nanoTime();
+			// train step and gets the train time
+			IMIMLClassifier clone = classifier.makeCopy();
+			clone.setDebug(true);
+			long time_ini = System.nanoTime();
+			long cpu = Utils.cpuTime(() -> {
 				clone.build(mlTrain);
-				long time_fin = System.nanoTime();
-				TimeUnit.NANOSECONDS.toMillis(time_fin - time_ini);
-				trainTime[i] = TimeUnit.NANOSECONDS.toMillis(time_fin - time_ini);
-
-				// test step and gets the test time
-				Evaluator eval = new Evaluator();
-				time_ini = System.nanoTime();
-				Evaluations[i] = eval.evaluate(clone, mlTest, mlTrain);
-
-				time_fin = System.nanoTime();
-				TimeUnit.NANOSECONDS.toMillis(time_fin - time_ini);
-				testTime[i] = TimeUnit.NANOSECONDS.toMillis(time_fin - time_ini);
-
-			} catch (Exception e) {
-				// TODO Auto-generated catch block
-				e.printStackTrace();
-			}
+				return null;
+			});
+			long time_fin = System.nanoTime();
+			trainTime[i] = TimeUnit.NANOSECONDS.toMillis(time_fin - time_ini);
+			if (parallel)
+				trainCpuTime[i] = cpu < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(cpu);
+
+			// test step and gets the test time
+			BatchEvaluator eval = new BatchEvaluator();
+			time_ini = System.nanoTime();
+			cpu = Utils.cpuTime(() -> {
+				if (streamingEvaluator != null)
+					Evaluations[i] = streamingEvaluator.evaluate(clone, mlTest);
+				else
+					Evaluations[i] = eval.evaluate(clone, mlTest, mlTrain);
+				return null;
+			});
+			time_fin = System.nanoTime();
+			testTime[i] = TimeUnit.NANOSECONDS.toMillis(time_fin - time_ini);
+			if (parallel)
+				testCpuTime[i] = cpu < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(cpu);
+		});
 
 		multipleEvaluation = new MultipleEvaluation(Evaluations, data);
 		try {
@@ -144,6 +191,32 @@ public class EvaluatorCV implements IConfiguration, IEvaluator<MultipleEvaluatio
 
 	}
 
+	/**
+	 * Computes the indices of the instances of each fold. Folds are consecutive
+	 * blocks of instances as in weka.core.Instances.testCV, the first folds having
+	 * an additional instance if the number of instances is not a multiple of the
+	 * number of folds.
+	 *
+	 * @param numInstances The number of instances.
+	 * @return The indices of the instances of each fold.
+	 */
+	protected int[][] foldIndices(int numInstances) {
+		if (numFolds < 2)
+			throw new IllegalArgumentException("Number of folds must be at least 2!");
+		if (numFolds > numInstances)
+			throw new IllegalArgumentException("Can't have more folds than instances!");
+
+		int[][] folds = new int[numFolds][];
+		for (int f = 0, first = 0; f < numFolds; f++) {
+			int size = numInstances / numFolds + (f < numInstances % numFolds ? 1 : 0);
+			folds[f] = new int[size];
+			for (int i = 0; i < size; i++)
+				folds[f][i] = first + i;
+			first += size;
+		}
+		return folds;
+	}
+
 	/**
 	 * Calculate the mean of given array.
 	 *
@@ -190,6 +263,24 @@ public class EvaluatorCV implements IConfiguration, IEvaluator<MultipleEvaluatio
 		return testTime;
 	}
 
+	/**
+	 * Gets the CPU time spent in training in each fold.
+	 *
+	 * @return The train CPU time or null if folds were not run in parallel.
+	 */
+	public long[] getTrainCpuTime() {
+		return trainCpuTime;
+	}
+
+	/**
+	 * Gets the CPU time spent in testing in each fold.
+	 *
+	 * @return The test CPU time or null if folds were not run in parallel.
+	 */
+	public long[] getTestCpuTime() {
+		return testCpuTime;
+	}
+
 	/**
 	 * Gets the number of folds used in the experiment.
 	 *
@@ -226,6 +317,44 @@ public class EvaluatorCV implements IConfiguration, IEvaluator<MultipleEvaluatio
 		this.seed = seed;
 	}
 
+	/**
+	 * Gets the number of folds run in parallel.
+	 *
+	 * @return The number of folds run in parallel.
+	 */
+	public int getParallelFolds() {
+		return parallelFolds;
+	}
+
+	/**
+	 * Sets the number of folds run in parallel. A value less than 1 means that all
+	 * available processors are used.
+	 *
+	 * @param parallelFolds The number of folds run in parallel.
+	 */
+	public void setParallelFolds(int parallelFolds) {
+		this.parallelFolds = parallelFolds;
+	}
+
+	/**
+	 * Gets the streaming evaluator.
+	 *
+	 * @return The streaming evaluator or null if it is not used.
+	 */
+	public StreamingEvaluator getStreamingEvaluator() {
+		return streamingEvaluator;
+	}
+
+	/**
+	 * Sets the streaming evaluator. If null, test bags are evaluated with
+	 * {@link BatchEvaluator}.
+	 *
+	 * @param streamingEvaluator The streaming evaluator.
+	 */
+	public void setStreamingEvaluator(StreamingEvaluator streamingEvaluator) {
+		this.streamingEvaluator = streamingEvaluator;
+	}
+
 	/**
 	 * Gets the average time of all folds in train.
 	 *
@@ -262,6 +391,42 @@ public class EvaluatorCV implements IConfiguration, IEvaluator<MultipleEvaluatio
 		return stdArray(testTime);
 	}
 
+	/**
+	 * Gets the average CPU time of all folds in train.
+	 *
+	 * @return The average CPU time of all folds.
+	 */
+	public double getAvgTrainCpuTime() {
+		return meanArray(trainCpuTime);
+	}
+
+	/**
+	 * Gets the average CPU time of all folds in test.
+	 *
+	 * @return The average CPU time of all folds.
+	 */
+	public double getAvgTestCpuTime() {
+		return meanArray(testCpuTime);
+	}
+
+	/**
+	 * Gets the standard deviation CPU time of all folds in train.
+	 *
+	 * @return The standard deviation CPU time of all folds.
+	 */
+	public double getStdTrainCpuTime() {
+		return stdArray(trainCpuTime);
+	}
+
+	/**
+	 * Gets the standard deviation CPU time of all folds in test.
+	 *
+	 * @return The standard deviation CPU time of all folds.
+	 */
+	public double getStdTestCpuTime() {
+		return stdArray(testCpuTime);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -292,6 +457,16 @@ public class EvaluatorCV implements IConfiguration, IEvaluator<MultipleEvaluatio
 
 		numFolds = configuration.getInt("numFolds", 5);
 		seed = configuration.getInt("seed", 1);
+		parallelFolds = configuration.getInt("parallelFolds", 1);
+
+		// Measures can be accumulated as predictions are made. Only the measures of
+		// MeasureAccumulator are computed and each of the numThreads workers but the
+		// first one predicts with a deep copy of the classifier
+		if (configuration.getBoolean("streaming", false)) {
+			int blockSize = configuration.getInt("streaming[@blockSize]", 1000);
+			int numThreads = configuration.getInt("streaming[@numThreads]", 1);
+			streamingEvaluator = new StreamingEvaluator(blockSize, numThreads);
+		}
 
 		String arffFile = configuration.subset("data").getString("file");
 		String xmlFileName = configuration.subset("data").getString("xmlFile");
@@ -27,10 +27,11 @@ import miml.core.IConfiguration;
 import miml.data.MIMLInstances;
 import mulan.data.InvalidDataFormatException;
 import mulan.evaluation.Evaluation;
-import mulan.evaluation.Evaluator;
 
 /**
- * Class that allow evaluate an algorithm applying a holdout method.
+ * Class that allow evaluate an algorithm applying a holdout method. Optionally,
+ * measures are computed by a {@link StreamingEvaluator} without keeping all
+ * predictions.
  *
  * @author Alvaro A. Belmonte
  * @author Eva Gibaja
@@ -54,6 +55,14 @@ public class EvaluatorHoldout implements IConfiguration, IEvaluator<Evaluation>
 	/** Test time in milliseconds. */
 	protected long testTime;
 
+	/**
+	 * The evaluator used to compute the measures without keeping all predictions
+	 * or null to evaluate with {@link BatchEvaluator}. By default null. It only
+	 * computes the 12 measures of {@link MeasureAccumulator}, so reports have
+	 * fewer measures than with {@link BatchEvaluator}.
+	 */
+	protected StreamingEvaluator streamingEvaluator = null;
+
 	/**
 	 * Instantiates a new holdout evaluator with provided train and test partitions.
 	 *
@@ -113,7 +122,8 @@ public class EvaluatorHoldout implements IConfiguration, IEvaluator<Evaluation>
 	@Override
 	public void runExperiment(IMIMLClassifier classifier) {
 
-		Evaluator eval = new Evaluator();
+		// Test bags are predicted at once by the classifier
+		BatchEvaluator eval = new BatchEvaluator();
 
 		System.out.println("" + new Date() + ": " + "Building model");
 		try {
@@ -126,7 +136,10 @@ public class EvaluatorHoldout implements IConfiguration, IEvaluator<Evaluation>
 			System.out.println("" + new Date() + ": " + "Getting evaluation results");
 
 			startTime = System.nanoTime();
-			evaluation = eval.evaluate(classifier, testData, trainData);
+			if (streamingEvaluator != null)
+				evaluation = streamingEvaluator.evaluate(classifier, testData);
+			else
+				evaluation = eval.evaluate(classifier, testData, trainData);
 			estimatedTime = System.nanoTime() - startTime;
 			testTime = TimeUnit.NANOSECONDS.toMillis(estimatedTime);
 
@@ -153,6 +166,25 @@ public class EvaluatorHoldout implements IConfiguration, IEvaluator<Evaluation>
 		return testTime;
 	}
 
+	/**
+	 * Gets the streaming evaluator.
+	 *
+	 * @return The streaming evaluator or null if it is not used.
+	 */
+	public StreamingEvaluator getStreamingEvaluator() {
+		return streamingEvaluator;
+	}
+
+	/**
+	 * Sets the streaming evaluator. If null, test bags are evaluated with
+	 * {@link BatchEvaluator}.
+	 *
+	 * @param streamingEvaluator The streaming evaluator.
+	 */
+	public void setStreamingEvaluator(StreamingEvaluator streamingEvaluator) {
+		this.streamingEvaluator = streamingEvaluator;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -213,6 +245,15 @@ public class EvaluatorHoldout implements IConfiguration, IEvaluator<Evaluation>
 			e.printStackTrace();
 		}
 
+		// Measures can be accumulated as predictions are made. Only the measures of
+		// MeasureAccumulator are computed and each of the numThreads workers but the
+		// first one predicts with a deep copy of the classifier
+		if (configuration.getBoolean("streaming", false)) {
+			int blockSize = configuration.getInt("streaming[@blockSize]", 1000);
+			int numThreads = configuration.getInt("streaming[@numThreads]", 1);
+			streamingEvaluator = new StreamingEvaluator(blockSize, numThreads);
+		}
+
 		ConfigParameters.setDataFileName(new File(arffFileTrain).getName());
 
 	}
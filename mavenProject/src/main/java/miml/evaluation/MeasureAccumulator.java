@@ -0,0 +1,461 @@
+/*    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 2 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program; if not, write to the Free Software
+ *    Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package miml.evaluation;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import miml.classifiers.miml.MIMLPredictions;
+import mulan.classifier.MultiLabelOutput;
+import mulan.evaluation.measure.InformationRetrievalMeasures;
+import mulan.evaluation.measure.Measure;
+
+/**
+ * Incremental computation of the usual mulan measures. Instead of keeping the
+ * predictions, each prediction updates the per-label confusion counts, from
+ * which Hamming loss, subset accuracy and micro/macro-averaged precision, recall
+ * and F-measure are computed, and the sums of the ranking measures (average
+ * precision, coverage, one-error and ranking loss). All statistics are updated
+ * in a single pass over the labels of each bag. Accumulators of different parts
+ * of a dataset (e.g. filled by different threads) can be merged.
+ *
+ * @author Eva Gibaja
+ * @version 20261019
+ */
+public class MeasureAccumulator implements Serializable {
+
+	/** For serialization. */
+	private static final long serialVersionUID = -8019462377520814736L;
+
+	/** The number of labels. */
+	protected int numLabels;
+
+	/** Whether bipartition-based measures are computed. */
+	protected boolean bipartitions;
+
+	/** Whether ranking-based measures are computed. */
+	protected boolean rankings;
+
+	/** The number of bags evaluated. */
+	protected long numBags;
+
+	/** Sum of the Hamming loss of each bag. */
+	protected double hammingLoss;
+
+	/** The number of bags whose bipartition equals the true labels. */
+	protected long exactMatches;
+
+	/** True positives of each label. */
+	protected long[] truePositives;
+
+	/** False positives of each label. */
+	protected long[] falsePositives;
+
+	/** False negatives of each label. */
+	protected long[] falseNegatives;
+
+	/** True negatives of each label. */
+	protected long[] trueNegatives;
+
+	/** Sum of the average precision of the bags with some relevant label. */
+	protected double averagePrecision;
+
+	/** The number of bags with some relevant label. */
+	protected long numRelevantBags;
+
+	/** Sum of the coverage of each bag. */
+	protected long coverage;
+
+	/** The number of bags whose top-ranked label is not relevant. */
+	protected long oneErrors;
+
+	/** Sum of the ranking loss of each bag. */
+	protected double rankingLoss;
+
+	/**
+	 * Creates an empty accumulator.
+	 *
+	 * @param numLabels    The number of labels.
+	 * @param bipartitions Whether bipartition-based measures are computed.
+	 * @param rankings     Whether ranking-based measures are computed.
+	 */
+	public MeasureAccumulator(int numLabels, boolean bipartitions, boolean rankings) {
+		this.numLabels = numLabels;
+		this.bipartitions = bipartitions;
+		this.rankings = rankings;
+		truePositives = new long[numLabels];
+		falsePositives = new long[numLabels];
+		falseNegatives = new long[numLabels];
+		trueNegatives = new long[numLabels];
+	}
+
+	/**
+	 * Creates an empty accumulator with the measures that mulan's Evaluator would
+	 * compute for a given prediction.
+	 *
+	 * @param numLabels The number of labels.
+	 * @param sample    A prediction.
+	 */
+	public MeasureAccumulator(int numLabels, MultiLabelOutput sample) {
+		this(numLabels, sample.hasBipartition(), sample.hasRanking());
+	}
+
+	/**
+	 * Updates the statistics with the prediction of a bag.
+	 *
+	 * @param bipartition The predicted bipartition or null if bipartition-based
+	 *                    measures are not computed.
+	 * @param ranking     The predicted ranking (1 is the top-ranked label) or null
+	 *                    if ranking-based measures are not computed.
+	 * @param truth       The true labels of the bag.
+	 */
+	public void update(boolean[] bipartition, int[] ranking, boolean[] truth) {
+		numBags++;
+		if (bipartitions) {
+			int errors = 0;
+			for (int j = 0; j < numLabels; j++)
+				errors += count(j, bipartition[j], truth[j]);
+			hammingLoss += (double) errors / numLabels;
+			if (errors == 0)
+				exactMatches++;
+		}
+		if (rankings)
+			updateRanking(ranking, truth);
+	}
+
+	/**
+	 * Updates the statistics with the prediction of a bag stored in a
+	 * {@link MIMLPredictions}. Packed bipartitions are read without unpacking them.
+	 *
+	 * @param predictions The predictions.
+	 * @param bag         The index of the bag in the predictions.
+	 * @param truth       The true labels of the bag.
+	 */
+	public void update(MIMLPredictions predictions, int bag, boolean[] truth) {
+		numBags++;
+		if (bipartitions) {
+			int errors = 0;
+			for (int j = 0; j < numLabels; j++)
+				errors += count(j, predictions.isRelevant(bag, j), truth[j]);
+			hammingLoss += (double) errors / numLabels;
+			if (errors == 0)
+				exactMatches++;
+		}
+		if (rankings) {
+			double[] confidences = predictions.getConfidences(bag);
+			int[] ranking = confidences != null ? MultiLabelOutput.ranksFromValues(confidences)
+					: predictions.getOutput(bag).getRanking();
+			updateRanking(ranking, truth);
+		}
+	}
+
+	/**
+	 * Updates the confusion counts of a label.
+	 *
+	 * @param label     The index of the label.
+	 * @param predicted Whether the label is predicted as relevant.
+	 * @param actual    Whether the label is relevant.
+	 * @return 1 if the prediction is wrong, 0 otherwise.
+	 */
+	protected int count(int label, boolean predicted, boolean actual) {
+		if (actual) {
+			if (predicted)
+				truePositives[label]++;
+			else
+				falseNegatives[label]++;
+		} else {
+			if (predicted)
+				falsePositives[label]++;
+			else
+				trueNegatives[label]++;
+		}
+		return predicted != actual ? 1 : 0;
+	}
+
+	/**
+	 * Updates the sums of the ranking measures. Labels are visited in rank order
+	 * once, so that the number of relevant labels ranked at or above each rank is
+	 * known, and the measures are computed as in mulan.
+	 *
+	 * @param ranking The predicted ranking.
+	 * @param truth   The true labels.
+	 */
+	protected void updateRanking(int[] ranking, boolean[] truth) {
+		// byRank[r] is the label ranked at position r+1
+		int[] byRank = new int[numLabels];
+		for (int j = 0; j < numLabels; j++)
+			byRank[ranking[j] - 1] = j;
+
+		// relevantAbove[r] is the number of relevant labels ranked at or above r+1
+		int[] relevantAbove = new int[numLabels];
+		int relevant = 0;
+		long reversedPairs = 0;
+		int deepest = 0;
+		for (int r = 0; r < numLabels; r++) {
+			if (truth[byRank[r]]) {
+				relevant++;
+				deepest = r;
+				// Irrelevant labels ranked above a relevant one are reversed pairs
+				reversedPairs += (r + 1) - relevant;
+			}
+			relevantAbove[r] = relevant;
+		}
+		int irrelevant = numLabels - relevant;
+
+		if (!truth[byRank[0]])
+			oneErrors++;
+		coverage += relevant > 0 ? deepest : 0;
+		if (relevant > 0 && irrelevant > 0)
+			rankingLoss += (double) reversedPairs / (relevant * irrelevant);
+
+		if (relevant > 0) {
+			// As in mulan, relevant labels are visited in index order
+			double avgP = 0;
+			for (int j = 0; j < numLabels; j++) {
+				if (truth[j])
+					avgP += ((double) relevantAbove[ranking[j] - 1] / ranking[j]);
+			}
+			averagePrecision += avgP / relevant;
+			numRelevantBags++;
+		}
+	}
+
+	/**
+	 * Adds the statistics of another accumulator to this one.
+	 *
+	 * @param other An accumulator of the same labels and measures.
+	 * @throws IllegalArgumentException If the accumulators do not compute the same
+	 *                                  measures.
+	 */
+	public void merge(MeasureAccumulator other) {
+		if (other.numLabels != numLabels || other.bipartitions != bipartitions || other.rankings != rankings)
+			throw new IllegalArgumentException("Accumulators of different measures can not be merged.");
+
+		numBags += other.numBags;
+		hammingLoss += other.hammingLoss;
+		exactMatches += other.exactMatches;
+		for (int j = 0; j < numLabels; j++) {
+			truePositives[j] += other.truePositives[j];
+			falsePositives[j] += other.falsePositives[j];
+			falseNegatives[j] += other.falseNegatives[j];
+			trueNegatives[j] += other.trueNegatives[j];
+		}
+		averagePrecision += other.averagePrecision;
+		numRelevantBags += other.numRelevantBags;
+		coverage += other.coverage;
+		oneErrors += other.oneErrors;
+		rankingLoss += other.rankingLoss;
+	}
+
+	/**
+	 * Creates an accumulator with the same statistics as this one.
+	 *
+	 * @return The copy.
+	 */
+	public MeasureAccumulator makeCopy() {
+		return copy(bipartitions, rankings);
+	}
+
+	/**
+	 * Creates an accumulator with the statistics of some of the measures of this
+	 * one.
+	 *
+	 * @param bipartitions Whether the statistics of bipartition-based measures are
+	 *                     copied.
+	 * @param rankings     Whether the statistics of ranking-based measures are
+	 *                     copied.
+	 * @return The copy.
+	 */
+	protected MeasureAccumulator copy(boolean bipartitions, boolean rankings) {
+		MeasureAccumulator copy = new MeasureAccumulator(numLabels, bipartitions, rankings);
+		copy.numBags = numBags;
+		if (bipartitions) {
+			copy.hammingLoss = hammingLoss;
+			copy.exactMatches = exactMatches;
+			copy.truePositives = truePositives.clone();
+			copy.falsePositives = falsePositives.clone();
+			copy.falseNegatives = falseNegatives.clone();
+			copy.trueNegatives = trueNegatives.clone();
+		}
+		if (rankings) {
+			copy.averagePrecision = averagePrecision;
+			copy.numRelevantBags = numRelevantBags;
+			copy.coverage = coverage;
+			copy.oneErrors = oneErrors;
+			copy.rankingLoss = rankingLoss;
+		}
+		return copy;
+	}
+
+	/**
+	 * Clears the statistics.
+	 */
+	public void reset() {
+		numBags = 0;
+		hammingLoss = 0;
+		exactMatches = 0;
+		Arrays.fill(truePositives, 0);
+		Arrays.fill(falsePositives, 0);
+		Arrays.fill(falseNegatives, 0);
+		Arrays.fill(trueNegatives, 0);
+		averagePrecision = 0;
+		numRelevantBags = 0;
+		coverage = 0;
+		oneErrors = 0;
+		rankingLoss = 0;
+	}
+
+	/**
+	 * Gets the measures computed from the statistics, with the names and in the
+	 * order used by mulan's Evaluator. Each measure has its own copy of the
+	 * statistics it needs, so that it can be updated independently.
+	 *
+	 * @return The list of measures.
+	 */
+	public List<Measure> getMeasures() {
+		List<Measure> measures = new ArrayList<Measure>();
+		if (bipartitions) {
+			measures.add(new AccumulatedMeasure("Hamming Loss", 0, copy(true, false)));
+			measures.add(new AccumulatedMeasure("Subset Accuracy", 1, copy(true, false)));
+			measures.add(new AccumulatedMeasure("Micro-averaged Precision", 1, copy(true, false)));
+			measures.add(new AccumulatedMeasure("Micro-averaged Recall", 1, copy(true, false)));
+			measures.add(new AccumulatedMeasure("Micro-averaged F-Measure", 1, copy(true, false)));
+			measures.add(new AccumulatedMeasure.MacroAveraged("Macro-averaged Precision", 1, copy(true, false)));
+			measures.add(new AccumulatedMeasure.MacroAveraged("Macro-averaged Recall", 1, copy(true, false)));
+			measures.add(new AccumulatedMeasure.MacroAveraged("Macro-averaged F-Measure", 1, copy(true, false)));
+		}
+		if (rankings) {
+			measures.add(new AccumulatedMeasure("Average Precision", 1, copy(false, true)));
+			measures.add(new AccumulatedMeasure("Coverage", 1, copy(false, true)));
+			measures.add(new AccumulatedMeasure("OneError", 0, copy(false, true)));
+			measures.add(new AccumulatedMeasure("Ranking Loss", 0, copy(false, true)));
+		}
+		return measures;
+	}
+
+	/**
+	 * Gets the value of a measure computed from the statistics. Macro-averaged
+	 * measures are averaged in the same order as in mulan.
+	 *
+	 * @param name The name of the measure, as in mulan.
+	 * @return The value of the measure or NaN if no bag has been evaluated.
+	 * @throws IllegalArgumentException If the measure is unknown.
+	 */
+	public double getValue(String name) {
+		if (numBags == 0)
+			return Double.NaN;
+		switch (name) {
+		case "Hamming Loss":
+			return hammingLoss / numBags;
+		case "Subset Accuracy":
+			return (double) exactMatches / numBags;
+		case "Micro-averaged Precision":
+			return InformationRetrievalMeasures.precision(sum(truePositives), sum(falsePositives),
+					sum(falseNegatives));
+		case "Micro-averaged Recall":
+			return InformationRetrievalMeasures.recall(sum(truePositives), sum(falsePositives),
+					sum(falseNegatives));
+		case "Micro-averaged F-Measure":
+			return InformationRetrievalMeasures.fMeasure(sum(truePositives), sum(falsePositives),
+					sum(falseNegatives), 1);
+		case "Macro-averaged Precision":
+		case "Macro-averaged Recall":
+		case "Macro-averaged F-Measure":
+			double sum = 0;
+			for (int j = 0; j < numLabels; j++)
+				sum += getValue(name, j);
+			return sum / numLabels;
+		case "Average Precision":
+			return averagePrecision / numRelevantBags;
+		case "Coverage":
+			return (double) coverage / numBags;
+		case "OneError":
+			return (double) oneErrors / numBags;
+		case "Ranking Loss":
+			return rankingLoss / numBags;
+		default:
+			throw new IllegalArgumentException("Unknown measure: " + name);
+		}
+	}
+
+	/**
+	 * Gets the value of a macro-averaged measure for a label.
+	 *
+	 * @param name  The name of the measure, as in mulan.
+	 * @param label The index of the label.
+	 * @return The value of the measure or NaN if no bag has been evaluated.
+	 * @throws IllegalArgumentException If the measure is unknown.
+	 */
+	public double getValue(String name, int label) {
+		if (numBags == 0)
+			return Double.NaN;
+		switch (name) {
+		case "Macro-averaged Precision":
+			return InformationRetrievalMeasures.precision(truePositives[label], falsePositives[label],
+					falseNegatives[label]);
+		case "Macro-averaged Recall":
+			return InformationRetrievalMeasures.recall(truePositives[label], falsePositives[label],
+					falseNegatives[label]);
+		case "Macro-averaged F-Measure":
+			return InformationRetrievalMeasures.fMeasure(truePositives[label], falsePositives[label],
+					falseNegatives[label], 1);
+		default:
+			throw new IllegalArgumentException("Unknown macro-averaged measure: " + name);
+		}
+	}
+
+	/**
+	 * Sums an array of counts.
+	 *
+	 * @param counts The counts.
+	 * @return The sum.
+	 */
+	protected static double sum(long[] counts) {
+		long sum = 0;
+		for (long c : counts)
+			sum += c;
+		return sum;
+	}
+
+	/**
+	 * Gets the number of bags evaluated.
+	 *
+	 * @return long
+	 */
+	public long getNumBags() {
+		return numBags;
+	}
+
+	/**
+	 * Gets whether bipartition-based measures are computed.
+	 *
+	 * @return boolean
+	 */
+	public boolean hasBipartitions() {
+		return bipartitions;
+	}
+
+	/**
+	 * Gets whether ranking-based measures are computed.
+	 *
+	 * @return boolean
+	 */
+	public boolean hasRankings() {
+		return rankings;
+	}
+}
@@ -0,0 +1,206 @@
+/*    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 2 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program; if not, write to the Free Software
+ *    Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package miml.evaluation;
+
+import java.util.ArrayList;
+
+import miml.classifiers.miml.IMIMLClassifier;
+import miml.classifiers.miml.MIMLPredictions;
+import miml.core.Utils;
+import miml.data.MIMLInstances;
+import mulan.evaluation.Evaluation;
+import weka.core.Instance;
+import weka.core.Instances;
+
+/**
+ * Evaluator that computes the measures of a {@link MeasureAccumulator} without
+ * keeping the predictions of the whole test set. Test bags are predicted in
+ * blocks of blockSize bags with
+ * {@link IMIMLClassifier#makePredictions(MIMLInstances)}, and each block updates
+ * the accumulator and is discarded, so memory does not grow with the size of the
+ * test set. Blocks can be split among numThreads workers, each one with its own
+ * copy of the classifier and its own accumulator, and the accumulators are
+ * merged in order at the end. Classifiers whose predictions depend on the bags
+ * previously predicted (e.g. MIMLkNN updates the ranges of its metric) should be
+ * evaluated with a single worker. As in mulan's Evaluator, bags with missing
+ * labels are not evaluated and the measures are chosen according to the
+ * prediction of the first bag, but only the 12 measures of the accumulator are
+ * computed: Hamming loss, subset accuracy, micro/macro-averaged precision,
+ * recall and F-measure, average precision, coverage, one-error and ranking
+ * loss. Example-based, specificity, confidence, hierarchical and regression
+ * measures computed by {@link BatchEvaluator} are not reported.
+ *
+ * @author Eva Gibaja
+ * @version 20261019
+ */
+public class StreamingEvaluator {
+
+	/** The number of bags predicted at once. By default 1000 bags. */
+	protected int blockSize = 1000;
+
+	/**
+	 * The number of workers. A value less than 1 means that all available
+	 * processors are used. By default 1. Every worker but the first predicts with
+	 * a deep copy of the classifier made by makeCopy(), so memory grows with the
+	 * number of workers and the size of the model.
+	 */
+	protected int numThreads = 1;
+
+	/**
+	 * No-argument constructor.
+	 */
+	public StreamingEvaluator() {
+	}
+
+	/**
+	 * Creates a streaming evaluator.
+	 *
+	 * @param blockSize  The number of bags predicted at once.
+	 * @param numThreads The number of workers.
+	 */
+	public StreamingEvaluator(int blockSize, int numThreads) {
+		this.blockSize = blockSize;
+		this.numThreads = numThreads;
+	}
+
+	/**
+	 * Evaluates a classifier on a test set.
+	 *
+	 * @param classifier The classifier, already built.
+	 * @param testData   The test set.
+	 * @return The evaluation with the measures of a {@link MeasureAccumulator}.
+	 * @throws Exception If the evaluation fails.
+	 */
+	public Evaluation evaluate(IMIMLClassifier classifier, MIMLInstances testData) throws Exception {
+		MeasureAccumulator accumulator = accumulate(classifier, testData);
+		if (accumulator == null)
+			return new Evaluation(new ArrayList<>(), testData);
+		return new Evaluation(accumulator.getMeasures(), testData);
+	}
+
+	/**
+	 * Predicts a test set block by block and accumulates the statistics of the
+	 * measures.
+	 *
+	 * @param classifier The classifier, already built.
+	 * @param testData   The test set.
+	 * @return The accumulator or null if the test set is empty.
+	 * @throws Exception If the evaluation fails.
+	 */
+	public MeasureAccumulator accumulate(IMIMLClassifier classifier, MIMLInstances testData) throws Exception {
+		int nBags = testData.getNumBags();
+		int size = Math.max(1, blockSize);
+		int nBlocks = (nBags + size - 1) / size;
+		int nWorkers = Math.max(1, Math.min(Utils.resolveNumThreads(numThreads), nBlocks));
+
+		// Each worker predicts with its own copy of the classifier
+		IMIMLClassifier[] learners = new IMIMLClassifier[nWorkers];
+		learners[0] = classifier;
+		for (int w = 1; w < nWorkers; w++)
+			learners[w] = classifier.makeCopy();
+
+		MeasureAccumulator[] partial = new MeasureAccumulator[nWorkers];
+		Utils.parallelFor(nWorkers, nWorkers, w -> {
+			for (int b = w * nBlocks / nWorkers; b < (w + 1) * nBlocks / nWorkers; b++)
+				partial[w] = accumulateBlock(learners[w], testData, b * size, Math.min(nBags, (b + 1) * size),
+						partial[w]);
+		});
+
+		MeasureAccumulator result = null;
+		for (MeasureAccumulator p : partial) {
+			if (p == null)
+				continue;
+			if (result == null)
+				result = p;
+			else
+				result.merge(p);
+		}
+		return result;
+	}
+
+	/**
+	 * Predicts a block of consecutive bags and updates an accumulator with them.
+	 *
+	 * @param classifier  The classifier.
+	 * @param testData    The test set.
+	 * @param from        The index of the first bag of the block.
+	 * @param to          The index after the last bag of the block.
+	 * @param accumulator The accumulator or null to create it with the layout of
+	 *                    the predictions of the block.
+	 * @return The updated accumulator.
+	 * @throws Exception If the prediction fails.
+	 */
+	protected MeasureAccumulator accumulateBlock(IMIMLClassifier classifier, MIMLInstances testData, int from,
+			int to, MeasureAccumulator accumulator) throws Exception {
+		int[] indices = new int[to - from];
+		for (int i = 0; i < indices.length; i++)
+			indices[i] = from + i;
+		Instances block = Utils.subset(testData.getDataSet(), indices);
+		MIMLPredictions predictions = classifier
+				.makePredictions(new MIMLInstances(block, testData.getLabelsMetaData()));
+
+		int numLabels = testData.getNumLabels();
+		int[] labelIndices = testData.getLabelIndices();
+		if (accumulator == null && indices.length > 0)
+			accumulator = new MeasureAccumulator(numLabels, predictions.getOutput(0));
+
+		for (int i = 0; i < indices.length; i++) {
+			Instance instance = block.instance(i);
+			if (testData.hasMissingLabels(instance))
+				continue;
+			accumulator.update(predictions, i, BatchEvaluator.getTrueLabels(instance, numLabels, labelIndices));
+		}
+		return accumulator;
+	}
+
+	/**
+	 * Gets the number of bags predicted at once.
+	 *
+	 * @return int
+	 */
+	public int getBlockSize() {
+		return blockSize;
+	}
+
+	/**
+	 * Sets the number of bags predicted at once.
+	 *
+	 * @param blockSize The number of bags.
+	 */
+	public void setBlockSize(int blockSize) {
+		this.blockSize = blockSize;
+	}
+
+	/**
+	 * Gets the number of workers.
+	 *
+	 * @return int
+	 */
+	public int getNumThreads() {
+		return numThreads;
+	}
+
+	/**
+	 * Sets the number of workers. A value less than 1 means that all available
+	 * processors are used. Every worker but the first makes a deep copy of the
+	 * classifier.
+	 *
+	 * @param numThreads The number of workers.
+	 */
+	public void setNumThreads(int numThreads) {
+		this.numThreads = numThreads;
+	}
+}
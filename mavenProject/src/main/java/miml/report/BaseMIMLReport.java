@@ -20,6 +20,7 @@ import java.util.List;
 
 import org.apache.commons.configuration2.Configuration;
 
+import miml.classifiers.miml.meta.MIMLBagging;
 import miml.core.ConfigParameters;
 import miml.data.MIMLInstances;
 import miml.evaluation.EvaluatorCV;
@@ -105,6 +106,18 @@ public class BaseMIMLReport extends MIMLReport {
 				sb.append("Test_time_ms(std),");
 			}
 
+			// CPU times are only measured when folds run in parallel
+			if (evaluator.getTrainCpuTime() != null) {
+				sb.append("Train_CPU_time_ms(avg),");
+				if (this.std) {
+					sb.append("Train_CPU_time_ms(std),");
+				}
+				sb.append("Test_CPU_time_ms(avg),");
+				if (this.std) {
+					sb.append("Test_CPU_time_ms(std),");
+				}
+			}
+
 			// Write measure's names
 			for (Measure m : measures) {
 				measureName = m.getName();
@@ -154,6 +167,17 @@ public class BaseMIMLReport extends MIMLReport {
 			sb.append(evaluator.getStdTestTime() + ",");
 		}
 
+		if (evaluator.getTrainCpuTime() != null) {
+			sb.append(evaluator.getAvgTrainCpuTime() + ",");
+			if (this.std) {
+				sb.append(evaluator.getStdTrainCpuTime() + ",");
+			}
+			sb.append(evaluator.getAvgTestCpuTime() + ",");
+			if (this.std) {
+				sb.append(evaluator.getStdTestCpuTime() + ",");
+			}
+		}
+
 		// Write mean and std(optional) for each measure
 		for (Measure m : measures) {
 			measureName = m.getName();
@@ -310,6 +334,20 @@ public class BaseMIMLReport extends MIMLReport {
 			sb.append("Test time std (ms): " + evaluator.getStdTestTime() + System.getProperty("line.separator"));
 		}
 
+		if (evaluator.getTrainCpuTime() != null) {
+			sb.append("Train CPU time avg (ms): " + evaluator.getAvgTrainCpuTime()
+					+ System.getProperty("line.separator"));
+			if (this.std) {
+				sb.append("Train CPU time std (ms): " + evaluator.getStdTrainCpuTime()
+						+ System.getProperty("line.separator"));
+			}
+			sb.append("Test CPU time avg (ms): " + evaluator.getAvgTestCpuTime() + System.getProperty("line.separator"));
+			if (this.std) {
+				sb.append("Test CPU time std (ms): " + evaluator.getStdTestCpuTime()
+						+ System.getProperty("line.separator"));
+			}
+		}
+
 		for (Measure m : measures) {
 			measureName = m.getName();
 			sb.append(measureName);
@@ -399,6 +437,139 @@ public class BaseMIMLReport extends MIMLReport {
 		return sb.toString();
 	}
 
+	/**
+	 * Save the out-of-bag results of a MIMLBagging ensemble in CSV format. As they
+	 * have different columns than the results of the evaluator, they are saved in
+	 * their own file, see {@link #getOutOfBagFilename()}.
+	 *
+	 * @param classifier The ensemble, built with the out-of-bag evaluation.
+	 * @throws Exception To be handled in an upper level.
+	 */
+	public void saveOutOfBagReport(MIMLBagging classifier) throws Exception {
+		saveReport(outOfBagToCSV(classifier), getOutOfBagFilename());
+	}
+
+	/**
+	 * Gets the name of the file where the out-of-bag results are saved, that is
+	 * the filename of the report with the suffix "_outOfBag" before the extension
+	 * (i.e. results/MIMLBagging_outOfBag.csv for results/MIMLBagging.csv).
+	 *
+	 * @return The filename.
+	 */
+	public String getOutOfBagFilename() {
+		int dot = filename.lastIndexOf('.');
+		int separator = Math.max(filename.lastIndexOf('/'), filename.lastIndexOf('\\'));
+		if (dot <= separator)
+			return filename + "_outOfBag";
+		return filename.substring(0, dot) + "_outOfBag" + filename.substring(dot);
+	}
+
+	/**
+	 * Read the out-of-bag results of a MIMLBagging ensemble and transform to CSV
+	 * format.
+	 *
+	 * @param classifier The ensemble, built with the out-of-bag evaluation.
+	 * @return String with CSV content.
+	 * @throws Exception To be handled in an upper level.
+	 */
+	public String outOfBagToCSV(MIMLBagging classifier) throws Exception {
+
+		Evaluation evaluationOutOfBag = classifier.getOutOfBagEvaluation();
+		MIMLInstances data = classifier.getOutOfBagData();
+
+		StringBuilder sb = new StringBuilder();
+		String measureName;
+
+		// All evaluator measures
+		List<Measure> measures = evaluationOutOfBag.getMeasures();
+		// Measures selected by user
+		if (this.measures != null)
+			measures = filterMeasures(measures);
+
+		if (this.header) {
+			// Write header
+			sb.append("Algorithm," + "Dataset," + "ConfigurationFile," + "Evaluation," + "Bags,");
+			// Write measure's names
+			for (Measure m : measures) {
+				measureName = m.getName();
+				sb.append(measureName + ",");
+
+				if (m instanceof MacroAverageMeasure && this.labels) {
+
+					for (int i = 0; i < data.getNumLabels(); i++) {
+						sb.append(measureName + "-" + data.getDataSet().attribute(data.getLabelIndices()[i]).name()
+								+ ",");
+					}
+				}
+			}
+			sb.setLength(sb.length() - 1);
+			sb.append(System.getProperty("line.separator"));
+		}
+
+		sb.append(ConfigParameters.getAlgorithmName() + "," + ConfigParameters.getDataFileName() + ","
+				+ ConfigParameters.getConfigFileName() + "," + "out-of-bag," + data.getNumBags() + ",");
+
+		// Write value for each measure
+		for (Measure m : measures) {
+			sb.append(m.getValue() + ",");
+
+			if (m instanceof MacroAverageMeasure && this.labels) {
+
+				for (int i = 0; i < data.getNumLabels(); i++) {
+					sb.append(((MacroAverageMeasure) m).getValue(i) + ",");
+				}
+			}
+		}
+
+		sb.setLength(sb.length() - 1);
+		sb.append(System.getProperty("line.separator"));
+		return sb.toString();
+	}
+
+	/**
+	 * Read the out-of-bag results of a MIMLBagging ensemble and transform to plain
+	 * text.
+	 *
+	 * @param classifier The ensemble, built with the out-of-bag evaluation.
+	 * @return String with the content.
+	 * @throws Exception To be handled in an upper level.
+	 */
+	public String outOfBagToString(MIMLBagging classifier) throws Exception {
+
+		Evaluation evaluationOutOfBag = classifier.getOutOfBagEvaluation();
+		MIMLInstances data = classifier.getOutOfBagData();
+		StringBuilder sb = new StringBuilder();
+
+		// All evaluator measures
+		List<Measure> measures = evaluationOutOfBag.getMeasures();
+		// Measures selected by user
+		if (this.measures != null)
+			measures = filterMeasures(measures);
+
+		if (this.header) {
+			sb.append("Algorithm: " + ConfigParameters.getAlgorithmName() + System.getProperty("line.separator"));
+			sb.append("Dataset: " + ConfigParameters.getDataFileName() + System.getProperty("line.separator"));
+			sb.append("Config File: " + ConfigParameters.getConfigFileName() + System.getProperty("line.separator"));
+		}
+
+		sb.append("Out-of-bag bags: " + data.getNumBags() + System.getProperty("line.separator"));
+
+		for (Measure m : measures) {
+			sb.append(m);
+			if (m instanceof MacroAverageMeasure && this.labels) {
+				sb.append(System.getProperty("line.separator"));
+				for (int i = 0; i < data.getNumLabels(); i++) {
+					sb.append(data.getDataSet().attribute(data.getLabelIndices()[i]).name());
+					sb.append(": ");
+					sb.append(String.format("%.4f", ((MacroAverageMeasure) m).getValue(i)));
+					sb.append(" ");
+				}
+			}
+			sb.append(System.getProperty("line.separator"));
+		}
+		return sb.toString();
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
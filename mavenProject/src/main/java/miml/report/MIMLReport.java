@@ -111,6 +111,18 @@ public abstract class MIMLReport implements IReport, IConfiguration {
 	 */
 	@Override
 	public void saveReport(String report) throws FileNotFoundException {
+		saveReport(report, filename);
+	}
+
+	/**
+	 * Save the specified report in a given file. The report is appended to the
+	 * file if it already exists.
+	 *
+	 * @param report   The report.
+	 * @param filename The name of the file.
+	 * @throws FileNotFoundException To be handled in an upper level.
+	 */
+	protected void saveReport(String report, String filename) throws FileNotFoundException {
 
 		File file = new File(filename);
 
@@ -18,8 +18,10 @@ package miml.run;
 import java.util.Date;
 
 import miml.classifiers.miml.IMIMLClassifier;
+import miml.classifiers.miml.meta.MIMLBagging;
 import miml.core.ConfigLoader;
 import miml.evaluation.IEvaluator;
+import miml.report.BaseMIMLReport;
 import miml.report.IReport;
 import weka.core.Utils;
 
@@ -57,6 +59,12 @@ public class RunAlgorithm {
 			evaluator.runExperiment(classifier);
 
 			report.saveReport(report.toCSV(evaluator));
+
+			// The out-of-bag evaluation is available if the evaluator built the ensemble
+			if (classifier instanceof MIMLBagging && ((MIMLBagging) classifier).getOutOfBagEvaluation() != null
+					&& report instanceof BaseMIMLReport) {
+				((BaseMIMLReport) report).saveOutOfBagReport((MIMLBagging) classifier);
+			}
 			System.out.println("" + new Date() + ": " + "Experiment ended");
 		} catch (Exception e) {
 			e.printStackTrace();
@@ -15,17 +15,24 @@
 package miml.transformation.mimlTOmi;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
 
 import miml.data.MIMLBag;
 import miml.data.MIMLInstances;
 import mulan.transformations.BinaryRelevanceTransformation;
+import weka.core.Attribute;
+import weka.core.DenseInstance;
 import weka.core.Instance;
 import weka.core.Instances;
 
 /**
  * 
  * Class that uses Binary Relevance transformation to convert MIMLInstances to
- * MIL Instances with relational attribute.
+ * MIL Instances with relational attribute. The binary view of a label has the
+ * attributes of the bags that are not labels and the label as class. Attributes
+ * of the views are copies of the attributes of the dataset, so they share its
+ * relational values and bags are not duplicated for each label.
  * 
  * 
  * @author Ana I. Reyes Melero
@@ -39,12 +46,21 @@ public class BRTransformation implements Serializable {
 	/** For serialization. */
 	private static final long serialVersionUID = -3662731281779529497L;
 
-	/** Binary Relevance Transformation. */
-	protected BinaryRelevanceTransformation BRT;
-
 	/** MIML dataSet. */
 	protected MIMLInstances dataSet;
 
+	/** The index in the bags of each attribute of a binary view but the class. */
+	protected int[] attributeMapping;
+
+	/** The header of the binary views of the bags of the dataset. */
+	protected Instances header;
+
+	/** The dataset of the bags whose header for prediction is prepared. */
+	protected transient Instances sourceFormat;
+
+	/** The header of the binary views of the bags of sourceFormat. */
+	protected transient Instances predictionHeader;
+
 	/**
 	 * Constructor.
 	 * 
@@ -53,7 +69,76 @@ public class BRTransformation implements Serializable {
 	 */
 	public BRTransformation(MIMLInstances dataSet) {
 		this.dataSet = dataSet;
-		this.BRT = new BinaryRelevanceTransformation(dataSet);
+
+		Instances data = dataSet.getDataSet();
+		boolean[] isLabel = new boolean[data.numAttributes()];
+		for (int index : dataSet.getLabelIndices())
+			isLabel[index] = true;
+
+		attributeMapping = new int[data.numAttributes() - dataSet.getNumLabels()];
+		for (int i = 0, j = 0; i < data.numAttributes(); i++)
+			if (!isLabel[i])
+				attributeMapping[j++] = i;
+
+		header = prepareHeader(data);
+	}
+
+	/**
+	 * Prepares the header of the binary views of the bags of a dataset. The class
+	 * is a binary attribute with values {0,1} as in
+	 * {@link BinaryRelevanceTransformation}.
+	 * 
+	 * @param source The dataset of the bags.
+	 * @return The header.
+	 */
+	protected Instances prepareHeader(Instances source) {
+		ArrayList<Attribute> attributes = new ArrayList<Attribute>(attributeMapping.length + 1);
+		for (int index : attributeMapping)
+			attributes.add((Attribute) source.attribute(index).copy());
+		attributes.add(new Attribute("BinaryRelevanceLabel", Arrays.asList("0", "1")));
+
+		Instances result = new Instances(source.relationName(), attributes, 0);
+		result.setClassIndex(result.numAttributes() - 1);
+		return result;
+	}
+
+	/**
+	 * Gets the header of the binary views of the bags of a dataset, preparing it
+	 * unless it was already prepared for that dataset.
+	 * 
+	 * @param source The dataset of the bags.
+	 * @return The header.
+	 */
+	protected synchronized Instances headerFor(Instances source) {
+		if (source == dataSet.getDataSet())
+			return header;
+		if (source != sourceFormat) {
+			predictionHeader = prepareHeader(source);
+			sourceFormat = source;
+		}
+		return predictionHeader;
+	}
+
+	/**
+	 * Computes the values of the binary view of a bag.
+	 * 
+	 * @param bag         The bag.
+	 * @param labelToKeep The label to keep. A value in [0, numLabels-1].
+	 * @return The values of the binary view.
+	 */
+	protected double[] binaryValues(Instance bag, int labelToKeep) {
+		double[] values = new double[attributeMapping.length + 1];
+		for (int j = 0; j < attributeMapping.length; j++)
+			values[j] = bag.value(attributeMapping[j]);
+
+		// Ensure class value 1 for relevant labels both for values {0,1} and {1,0}
+		int labelIndex = dataSet.getLabelIndices()[labelToKeep];
+		double label = bag.value(labelIndex);
+		if (dataSet.getDataSet().attribute(labelIndex).value(0).equals("1"))
+			values[attributeMapping.length] = 1 - label;
+		else
+			values[attributeMapping.length] = label;
+		return values;
 	}
 
 	/**
@@ -63,8 +148,10 @@ public class BRTransformation implements Serializable {
 	 * @param labelToKeep The label to keep. A value in [0, numLabels-1].
 	 * @return Instance
 	 */
-	public Instance transformBag(MIMLBag instance, int labelToKeep) {
-		return BRT.transformInstance(instance, labelToKeep);
+	public Instance transformBag(Instance instance, int labelToKeep) {
+		Instance transformed = new DenseInstance(instance.weight(), binaryValues(instance, labelToKeep));
+		transformed.setDataset(headerFor(instance.dataset()));
+		return transformed;
 	}
 
 	/**
@@ -76,7 +163,7 @@ public class BRTransformation implements Serializable {
 	 * @throws Exception To be handled in upper level.
 	 */
 	public Instance transformBag(int bagIndex, int labelToKeep) throws Exception {
-		return BRT.transformInstance(dataSet.getBag(bagIndex), labelToKeep);
+		return transformBag(dataSet.getBag(bagIndex), labelToKeep);
 	}
 
 	/**
@@ -101,7 +188,13 @@ public class BRTransformation implements Serializable {
 	 * @throws Exception To be handled in an upper level.
 	 */
 	public Instances transformBags(int labelToKeep) throws Exception {
-		return BRT.transformInstances(labelToKeep);
+		Instances data = dataSet.getDataSet();
+		Instances view = new Instances(header, data.numInstances());
+		for (int i = 0; i < data.numInstances(); i++) {
+			Instance bag = data.instance(i);
+			view.add(new DenseInstance(bag.weight(), binaryValues(bag, labelToKeep)));
+		}
+		return view;
 	}
 
 	/**
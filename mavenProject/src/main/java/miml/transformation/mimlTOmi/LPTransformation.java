@@ -1,14 +1,25 @@
 package miml.transformation.mimlTOmi;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
 
 import miml.data.MIMLBag;
 import miml.data.MIMLInstances;
+import mulan.data.LabelSet;
+import mulan.data.MultiLabelInstances;
 import mulan.transformations.LabelPowersetTransformation;
+import mulan.transformations.RemoveAllLabels;
+import weka.core.Attribute;
+import weka.core.DenseInstance;
 import weka.core.Instance;
 import weka.core.Instances;
-import weka.filters.Filter;
-import weka.filters.unsupervised.attribute.Remove;
+import weka.core.Utils;
 
 /**
  * 
@@ -71,7 +82,10 @@ public class LPTransformation implements Serializable {
 /**
  * 
  * Class that uses LabelPowerset transformation to convert MIMLInstances to MIL
- * Instances with relational attribute.
+ * Instances with relational attribute. The labelset of each bag is packed into
+ * a bit set which is mapped to its class value by a dictionary built once. The
+ * attributes of a bag that are not labels are copied into the transformed
+ * instance by a precomputed mapping, so no filter is applied per bag.
  * 
  * @author Ana I. Reyes Melero
  * @author Eva Gibaja
@@ -86,6 +100,105 @@ class MIMLLabelPowersetTransformation extends LabelPowersetTransformation {
 	 */
 	private static final long serialVersionUID = -515679901670889755L;
 
+	/** The format of the transformed instances. */
+	protected Instances transformedFormat;
+
+	/** Index of the class value of each labelset, given its packed key. */
+	protected Map<BitSet, Integer> classIndices;
+
+	/** The dataset of the bags whose format for prediction is prepared. */
+	protected transient Instances sourceFormat;
+
+	/** The labels removed in the format for prediction. */
+	protected int[] removedLabels;
+
+	/** The format of the transformed instances for the bags of sourceFormat. */
+	protected transient Instances predictionFormat;
+
+	/** The index in the bag of each attribute of the transformed instance. */
+	protected int[] attributeMapping;
+
+	@Override
+	public Instances getTransformedFormat() {
+		return transformedFormat;
+	}
+
+	/**
+	 * Transforms a multi-label dataset into a single-label one whose class is the
+	 * labelset of each instance. Class values are created in the same order as in
+	 * {@link LabelPowersetTransformation}.
+	 * 
+	 * @param mlData Multi-label data.
+	 * @return The transformed instances.
+	 * @throws Exception To be handled in an upper level.
+	 */
+	@Override
+	public Instances transformInstances(MultiLabelInstances mlData) throws Exception {
+		Instances data = mlData.getDataSet();
+		int[] labelIndices = mlData.getLabelIndices();
+		int numInstances = data.numInstances();
+
+		// Packed labelset of each instance and distinct labelsets in order of appearance
+		BitSet[] keys = new BitSet[numInstances];
+		LinkedHashSet<BitSet> distinct = new LinkedHashSet<BitSet>();
+		for (int i = 0; i < numInstances; i++) {
+			keys[i] = labelKey(data.instance(i), labelIndices);
+			distinct.add(keys[i]);
+		}
+
+		// The order of class values is the iteration order of the labelsets in a hash
+		// set, as in LabelPowersetTransformation
+		HashSet<LabelSet> labelSets = new HashSet<LabelSet>();
+		for (BitSet key : distinct) {
+			double[] dblLabels = new double[labelIndices.length];
+			for (int j = key.nextSetBit(0); j >= 0; j = key.nextSetBit(j + 1))
+				dblLabels[j] = 1;
+			labelSets.add(new LabelSet(dblLabels));
+		}
+
+		ArrayList<String> classValues = new ArrayList<String>(labelSets.size());
+		classIndices = new HashMap<BitSet, Integer>(2 * labelSets.size());
+		for (LabelSet labelSet : labelSets) {
+			boolean[] labels = labelSet.toBooleanArray();
+			BitSet key = new BitSet(labels.length);
+			for (int j = 0; j < labels.length; j++)
+				if (labels[j])
+					key.set(j);
+			classIndices.put(key, classValues.size());
+			classValues.add(labelSet.toBitString());
+		}
+		Attribute newClass = new Attribute("LP_Class_0", classValues);
+
+		// remove all labels and add the new class attribute
+		Instances newData = RemoveAllLabels.transformInstances(data, labelIndices);
+		newData.insertAttributeAt(newClass, newData.numAttributes());
+		newData.setClassIndex(newData.numAttributes() - 1);
+
+		for (int i = 0; i < numInstances; i++)
+			newData.instance(i).setClassValue(classIndices.get(keys[i]));
+
+		transformedFormat = new Instances(newData, 0);
+		return newData;
+	}
+
+	/**
+	 * Packs the labelset of an instance into a bit set with a bit per relevant
+	 * label.
+	 * 
+	 * @param instance     The instance.
+	 * @param labelIndices The indices of the labels.
+	 * @return The packed labelset.
+	 */
+	protected static BitSet labelKey(Instance instance, int[] labelIndices) {
+		BitSet key = new BitSet(labelIndices.length);
+		for (int j = 0; j < labelIndices.length; j++) {
+			int index = labelIndices[j];
+			if ((int) Double.parseDouble(instance.attribute(index).value((int) instance.value(index))) == 1)
+				key.set(j);
+		}
+		return key;
+	}
+
 	/**
 	 * 
 	 * @param instance     The instance to be transformed
@@ -96,23 +209,56 @@ class MIMLLabelPowersetTransformation extends LabelPowersetTransformation {
 	@Override
 	public Instance transformInstance(Instance instance, int[] labelIndices) throws Exception {
 
-		// Prepares a dataset with a single instance
-		Instances aux = new Instances(instance.dataset(), 0);
-		aux.add(instance);
+		Instances format;
+		int[] mapping;
+		synchronized (this) {
+			preparePredictionFormat(instance.dataset(), labelIndices);
+			format = predictionFormat;
+			mapping = attributeMapping;
+		}
+
+		// Copies the attributes that are not labels, the class is unknown
+		double[] values = new double[format.numAttributes()];
+		for (int j = 0; j < mapping.length; j++)
+			values[j] = instance.value(mapping[j]);
+		values[format.classIndex()] = Utils.missingValue();
+
+		Instance result = new DenseInstance(instance.weight(), values);
+		result.setDataset(format);
+		return result;
+	}
 
-		// Remove labels
-		Remove remove = new Remove();
-		remove.setAttributeIndicesArray(labelIndices);
-		remove.setInputFormat(aux);
-		Instances result = Filter.useFilter(aux, remove);
+	/**
+	 * Prepares the format of the transformed instances for the bags of a dataset,
+	 * unless it was already prepared for that dataset. Attributes of the format are
+	 * copies of the attributes of the dataset, so they share its relational values
+	 * and bags can be copied by value.
+	 * 
+	 * @param source       The dataset of the bags to be transformed.
+	 * @param labelIndices The labels to remove.
+	 */
+	protected void preparePredictionFormat(Instances source, int[] labelIndices) {
+		if (source == sourceFormat && Arrays.equals(labelIndices, removedLabels))
+			return;
 
-		// Adds class attribute
-		result.insertAttributeAt(getTransformedFormat().attribute(getTransformedFormat().classIndex()),
-				result.numAttributes());
-		result.setClassIndex(result.numAttributes() - 1);
+		boolean[] isLabel = new boolean[source.numAttributes()];
+		for (int index : labelIndices)
+			isLabel[index] = true;
 
-		return result.instance(0);
+		ArrayList<Attribute> attributes = new ArrayList<Attribute>();
+		attributeMapping = new int[source.numAttributes() - labelIndices.length];
+		for (int i = 0, j = 0; i < source.numAttributes(); i++) {
+			if (!isLabel[i]) {
+				attributeMapping[j++] = i;
+				attributes.add((Attribute) source.attribute(i).copy());
+			}
+		}
+		attributes.add((Attribute) transformedFormat.classAttribute().copy());
 
+		predictionFormat = new Instances(transformedFormat.relationName(), attributes, 0);
+		predictionFormat.setClassIndex(predictionFormat.numAttributes() - 1);
+		sourceFormat = source;
+		removedLabels = labelIndices.clone();
 	}
 
 }
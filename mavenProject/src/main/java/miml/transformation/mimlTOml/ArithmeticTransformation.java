@@ -57,35 +57,7 @@ public class ArithmeticTransformation extends MIMLtoML {
 
 	@Override
 	public MultiLabelInstances transformDataset() throws Exception {
-		Instances newData = new Instances(template);
-		int labelIndices[] = dataset.getLabelIndices();
-		Instance newInst = new DenseInstance(newData.numAttributes());
-		newInst.setDataset(newData); // Sets the reference to the dataset
-
-		// For all bags in the dataset
-		double nBags = dataset.getNumBags();
-		for (int i = 0; i < nBags; i++) {
-			// retrieves a bag
-			MIMLBag bag = dataset.getBag(i);
-			// sets the bagLabel
-			newInst.setValue(0, bag.value(0));
-
-			// retrieves instances (relational value) for each bag
-			Instances instances = bag.getBagAsInstances();
-			// for all attributes in bag
-			for (int j = 0, attIdx = 1; j < instances.numAttributes(); j++, attIdx++) {
-				double value = instances.meanOrMode(j);
-				newInst.setValue(attIdx, value);
-			}
-
-			// inserts label information into the instance
-			for (int j = 0; j < labelIndices.length; j++) {
-				newInst.setValue(updatedLabelIndices[j], dataset.getBag(i).value(labelIndices[j]));
-			}
-
-			newData.add(newInst);
-		}
-
+		Instances newData = transformBags(dataset, (i, bag) -> transformValues(bag));
 		return new MultiLabelInstances(newData, dataset.getLabelsMetaData());
 	}
 
@@ -102,27 +74,40 @@ public class ArithmeticTransformation extends MIMLtoML {
 	@Override
 	public Instance transformInstance(MIMLBag bag) throws Exception {
 
+		Instance newInst = new DenseInstance(1.0, transformValues(bag));
+		newInst.setDataset(bag.dataset()); // Sets the reference to the dataset
+		return newInst;
+	}
+
+	/**
+	 * Computes the values of the transformed instance of a bag.
+	 * 
+	 * @param bag The bag to be transformed.
+	 * @return The values of the transformed instance.
+	 * @throws Exception To be handled in an upper level.
+	 */
+	protected double[] transformValues(MIMLBag bag) throws Exception {
+
 		int labelIndices[] = dataset.getLabelIndices();
-		Instance newInst = new DenseInstance(template.numAttributes());
+		double[] values = new double[template.numAttributes()];
 
 		// sets the bagLabel
-		newInst.setDataset(bag.dataset()); // Sets the reference to the dataset
-		newInst.setValue(0, bag.value(0));
+		values[0] = bag.value(0);
 
 		// retrieves instances (relational value)
 		Instances instances = bag.getBagAsInstances();
+		double[] mean = cachedFeatures(instances, bagInstances -> bagStatistics(bagInstances)[MEAN]);
 		// For all attributes in bag
 		for (int j = 0, attIdx = 1; j < instances.numAttributes(); j++, attIdx++) {
-			double value = instances.meanOrMode(j);
-			newInst.setValue(attIdx, value);
+			values[attIdx] = mean[j];
 		}
 
 		// Insert label information into the instance
 		for (int j = 0; j < labelIndices.length; j++) {
-			newInst.setValue(updatedLabelIndices[j], bag.value(labelIndices[j]));
+			values[updatedLabelIndices[j]] = bag.value(labelIndices[j]);
 		}
 
-		return newInst;
+		return values;
 	}
 
 	public Instance transformInstance(MIMLInstances dataset, MIMLBag bag) throws Exception {
@@ -16,7 +16,13 @@ package miml.transformation.mimlTOml;
  */
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.IntFunction;
 
+import miml.clusterers.MiniBatchKMeans;
+import miml.core.Utils;
+import miml.core.distance.HausdorffDistance;
 import miml.data.MIMLBag;
 import miml.data.MIMLInstances;
 import mulan.data.MultiLabelInstances;
@@ -36,7 +42,8 @@ import weka.core.Instances;
  * Conference on Artificial Intelligence (Vol. 26, No. 1, pp. 1012-1018).</em>
  * 
  * This class requires method transformDataset to have been executed before
- * executing transformInstance method.
+ * executing transformInstance method. If miniBatchSize is set, clustering is
+ * performed by {@link MiniBatchKMeans} instead of SimpleKMeans.
  * 
  * @author Eva Gibaja
  * @version 20231115
@@ -84,8 +91,39 @@ public class KMeansTransformation extends MIMLtoML {
 	 */
 	protected double[] delta;
 
+	/**
+	 * The maximum number of pairs of instances used to estimate the delta value of
+	 * a cluster. Clusters with more pairs than this value are estimated with a
+	 * random sample of pairs, so the cost of computing delta grows with the number
+	 * of clusters instead of with the square of the size of the largest cluster.
+	 * If this value is -1, all pairs are used. By default -1, so delta is exact; a
+	 * cap such as 100000 pairs keeps delta exact for clusters of up to 447
+	 * instances.
+	 */
+	protected int deltaSampleSize = -1;
+
+	/**
+	 * If it is greater than 0, clustering is performed by mini-batch k-means with
+	 * batches of this number of instances. If this value is -1, SimpleKMeans is
+	 * used.
+	 */
+	protected int miniBatchSize = -1;
+
+	/** The number of iterations (batches) of mini-batch k-means. */
+	protected int miniBatchIterations = 100;
+
 	protected EuclideanDistance dfunc;
 
+	/**
+	 * Prototypes normalized with the ranges of dfunc, stored in a flat array of
+	 * nClusters x nAttributes. It is null if some attribute is not numeric, in
+	 * which case similarities are computed by dfunc.
+	 */
+	protected double[] prototypeValues;
+
+	/** A copy of the ranges of dfunc used to normalize prototypes and bags. */
+	protected double[][] ranges;
+
 	/**
 	 * Constructor.
 	 * 
@@ -122,13 +160,6 @@ public class KMeansTransformation extends MIMLtoML {
 	public MultiLabelInstances transformDataset() throws Exception {
 
 		// 1. CLUSTERING STEP
-		// prepares the single-instance dataset for clustering
-		double nBags = dataset.getNumBags();
-		Instances singleInstances = new Instances(dataset.getBag(0).getBagAsInstances());
-		for (int i = 1; i < nBags; i++) {
-			singleInstances.addAll(dataset.getBag(i).getBagAsInstances());
-		}
-
 		if (clusterer == null) {
 			clusterer = new SimpleKMeans();
 		}
@@ -137,60 +168,163 @@ public class KMeansTransformation extends MIMLtoML {
 
 		// performs clustering
 		System.out.println("k-means Transformation.\n\tPerforming k-means clustering to transform the dataset");
-		clusterer.buildClusterer(singleInstances);
-		clusteringDone = true;
-		System.out.println("\tnClusters=" + clusterer.getNumClusters());
-		System.out.println("\tseed=" + clusterer.getSeed());
+		if (miniBatchSize > 0) {
+			clusterMiniBatch();
+		} else {
+			clusterSimpleKMeans();
+		}
+		preparePrototypeValues();
+
 		prepareTemplate();
 		template.setRelationName(dataset.getDataSet().relationName() + "_kmeans_transformation");
 
-		// prototypes are the instances closest to the cluster centroids
+		// 2. TRANSFORMATION STEP
+		Instances newData = transformBags(dataset, (i, bag) -> transformValues(bag));
+		return new MultiLabelInstances(newData, dataset.getLabelsMetaData());
+
+	}
+
+	/**
+	 * Performs clustering with SimpleKMeans over a single-instance dataset with the
+	 * instances of all bags, and obtains the prototypes and delta values.
+	 * 
+	 * @throws Exception To be handled in an upper level.
+	 */
+	protected void clusterSimpleKMeans() throws Exception {
+
+		// prepares the single-instance dataset for clustering
+		double nBags = dataset.getNumBags();
+		Instances singleInstances = new Instances(dataset.getBag(0).getBagAsInstances());
+		for (int i = 1; i < nBags; i++) {
+			singleInstances.addAll(dataset.getBag(i).getBagAsInstances());
+		}
+
+		clusterer.buildClusterer(singleInstances);
 		Instances centroids = clusterer.getClusterCentroids();
+		clusteringDone = true;
+		System.out.println("\tnClusters=" + centroids.numInstances());
+		System.out.println("\tseed=" + seed);
+
 		dfunc = new EuclideanDistance();
 		dfunc.setInstances(singleInstances);
 		for (int k = 0; k < centroids.numInstances(); k++)
 			dfunc.update(centroids.instance(k));
-		double[][] distanceMatrix = computeDistanceMatrix(centroids, singleInstances);
-		int[] clusterAssignment = clusterAssignment(distanceMatrix);
-		int[] prototypesIndex = computeIndexPrototypes(distanceMatrix);
-
-		int nClusters = distanceMatrix[0].length;
-		prototypes = new Instances(singleInstances, 0); // creates empty datasest
-		for (int k = 0; k < nClusters; k++) {
-			prototypes.add(singleInstances.instance(prototypesIndex[k]));
-		}
+		computePrototypes(centroids, singleInstances, singleInstances.numInstances(), singleInstances::instance);
+	}
 
-		// computes the value of delta as the average distance between instances in one
-		// cluster
-		double[] delta = computeDelta(clusterAssignment, singleInstances);
+	/**
+	 * Performs clustering with MiniBatchKMeans and obtains the prototypes and delta
+	 * values. The instances of all bags are read into a flat array, without
+	 * building a single-instance dataset, and the Weka instances needed to compute
+	 * distances are created from it one at a time.
+	 * 
+	 * @throws Exception To be handled in an upper level.
+	 */
+	protected void clusterMiniBatch() throws Exception {
 
-		// 2. TRANSFORMATION STEP
+		Instances header = new Instances(dataset.getBag(0).getBagAsInstances(), 0);
+		int nAttributes = header.numAttributes();
+		double[] values = flattenBags(nAttributes);
+		int nInstances = values.length / nAttributes;
 
-		Instances newData = new Instances(template);
-		int labelIndices[] = dataset.getLabelIndices();
-		Instance newInst = new DenseInstance(newData.numAttributes());
-		newInst.setDataset(newData); // Sets the reference to the dataset
+		MiniBatchKMeans miniBatch = new MiniBatchKMeans(numClusters, miniBatchSize, miniBatchIterations);
+		miniBatch.setSeed(seed);
+		miniBatch.buildClusterer(values, header);
+		Instances centroids = miniBatch.getClusterCentroids();
+		clusteringDone = true;
+		System.out.println("\tminiBatchSize=" + miniBatchSize);
+		System.out.println("\tnClusters=" + centroids.numInstances());
+		System.out.println("\tseed=" + seed);
+
+		IntFunction<Instance> instanceAt = i -> {
+			Instance instance = new DenseInstance(1.0,
+					Arrays.copyOfRange(values, i * nAttributes, (i + 1) * nAttributes));
+			instance.setDataset(header);
+			return instance;
+		};
+
+		// ranges are updated instance by instance, so they are the same as if the
+		// distance were initialized with a single-instance dataset
+		dfunc = new EuclideanDistance();
+		dfunc.setInstances(header);
+		for (int i = 0; i < nInstances; i++)
+			dfunc.update(instanceAt.apply(i));
+		for (int k = 0; k < centroids.numInstances(); k++)
+			dfunc.update(centroids.instance(k));
+		computePrototypes(centroids, header, nInstances, instanceAt);
+	}
 
-		for (int i = 0; i < nBags; i++) {
+	/**
+	 * Reads the instances of all bags into a flat array of doubles (row-major).
+	 * Missing values are kept as NaN.
+	 * 
+	 * @param nAttributes The number of attributes of the instances of a bag.
+	 * @return A flat array of nInstances x nAttributes.
+	 * @throws Exception To be handled in an upper level.
+	 */
+	protected double[] flattenBags(int nAttributes) throws Exception {
+		int nBags = dataset.getNumBags();
+		int nInstances = 0;
+		for (int b = 0; b < nBags; b++)
+			nInstances += dataset.getBag(b).getBagAsInstances().numInstances();
+
+		double[] values = new double[nInstances * nAttributes];
+		int offset = 0;
+		for (int b = 0; b < nBags; b++) {
+			Instances bag = dataset.getBag(b).getBagAsInstances();
+			for (int i = 0; i < bag.numInstances(); i++, offset += nAttributes)
+				System.arraycopy(bag.instance(i).toDoubleArray(), 0, values, offset, nAttributes);
+		}
+		return values;
+	}
 
-			MIMLBag bag = dataset.getBag(i);
+	/**
+	 * Assigns each instance to its nearest centroid and takes as prototype of each
+	 * cluster the instance closest to its centroid, in a single pass over the
+	 * instances, so that the nInstances x nClusters distance matrix is not stored.
+	 * Then, computes the delta value of each cluster. Ties are resolved as in
+	 * {@link #clusterAssignment(double[][])} and
+	 * {@link #computeIndexPrototypes(double[][])}.
+	 * 
+	 * @param centroids  The centroids obtained by kmeans clustering.
+	 * @param header     A dataset with the attributes of the instances.
+	 * @param nInstances The number of instances used for clustering.
+	 * @param instanceAt The instance used for clustering given its index.
+	 * @throws Exception To be handled in an upper level.
+	 */
+	protected void computePrototypes(Instances centroids, Instances header, int nInstances,
+			IntFunction<Instance> instanceAt) throws Exception {
 
-			// sets the bagLabel
-			newInst.setValue(0, bag.value(0));
+		int nClusters = centroids.numInstances();
+		int[] clusterAssignment = new int[nInstances];
+		int[] prototypesIndex = new int[nClusters];
+		double[] prototypesDistance = new double[nClusters];
 
-			for (int k = 0, attIdx = 1; k < nClusters; k++, attIdx++) {
-				double sim = similarity(singleInstances.instance(prototypesIndex[k]), bag, delta[k]);
-				newInst.setValue(attIdx, sim);
+		for (int i = 0; i < nInstances; i++) {
+			Instance instance = instanceAt.apply(i);
+			double nearest = 0;
+			for (int k = 0; k < nClusters; k++) {
+				double dist = dfunc.distance(centroids.instance(k), instance);
+				if (k == 0 || dist < nearest) {
+					nearest = dist;
+					clusterAssignment[i] = k;
+				}
+				if (i == 0 || dist < prototypesDistance[k]) {
+					prototypesDistance[k] = dist;
+					prototypesIndex[k] = i;
+				}
 			}
+		}
 
-			// Copy label information into the dataset
-			for (int j = 0; j < labelIndices.length; j++) {
-				newInst.setValue(updatedLabelIndices[j], bag.value(labelIndices[j]));
-			}
-			newData.add(newInst);
+		// prototypes are the instances closest to the cluster centroids
+		prototypes = new Instances(header, nClusters);
+		for (int k = 0; k < nClusters; k++) {
+			prototypes.add(instanceAt.apply(prototypesIndex[k]));
 		}
-		return new MultiLabelInstances(newData, dataset.getLabelsMetaData());
 
+		// computes the value of delta as the average distance between instances in one
+		// cluster
+		computeDelta(clusterAssignment, nInstances, instanceAt);
 	}
 
 	@Override
@@ -202,12 +336,7 @@ public class KMeansTransformation extends MIMLtoML {
 		} else {
 			// To avoid a new clustering round if the clustering step was previously
 			// performed
-			Instances newData = new Instances(template);
-			for (int i = 0; i < dataset.getNumBags(); i++) {
-				MIMLBag bag = dataset.getBag(i);
-				Instance transfInst = transformInstance(bag);
-				newData.add(transfInst);
-			}
+			Instances newData = transformBags(dataset, (i, bag) -> transformValues(bag));
 			transformed = new MultiLabelInstances(newData, dataset.getLabelsMetaData());
 		}
 		return transformed;
@@ -219,26 +348,43 @@ public class KMeansTransformation extends MIMLtoML {
 			throw new Exception(
 					"The transformInstance method must be called after executing transformDataset that performs kmeans clustering required by this kind of transformation.");
 
+		Instance newInst = new DenseInstance(1.0, transformValues(bag));
+		newInst.setDataset(bag.dataset()); // Sets the reference to the dataset
+		return newInst;
+	}
+
+	/**
+	 * Computes the values of the transformed instance of a bag, that is, its
+	 * similarity to each prototype.
+	 * 
+	 * @param bag The bag to be transformed.
+	 * @return The values of the transformed instance.
+	 * @throws Exception To be handled in an upper level.
+	 */
+	protected double[] transformValues(MIMLBag bag) throws Exception {
+
 		int labelIndices[] = dataset.getLabelIndices();
-		Instance newInst = new DenseInstance(template.numAttributes());
+		double[] values = new double[template.numAttributes()];
 
 		// sets the bagLabel
-		newInst.setDataset(bag.dataset()); // Sets the reference to the dataset
-		newInst.setValue(0, bag.value(0));
+		values[0] = bag.value(0);
 
 		// an attribute per centroid
-		int numClusters = clusterer.getNumClusters();
-		for (int k = 0, attIdx = 1; k < numClusters; k++, attIdx++) {
-			double sim = similarity(prototypes.instance(k), bag, delta[k]);
-			newInst.setValue(attIdx, sim);
+		int numClusters = prototypes.numInstances();
+		if (prototypeValues != null) {
+			System.arraycopy(similarities(bag), 0, values, 1, numClusters);
+		} else {
+			for (int k = 0, attIdx = 1; k < numClusters; k++, attIdx++) {
+				values[attIdx] = similarity(prototypes.instance(k), bag, delta[k]);
+			}
 		}
 
 		// Insert label information into the instance
 		for (int j = 0; j < labelIndices.length; j++) {
-			newInst.setValue(updatedLabelIndices[j], bag.value(labelIndices[j]));
+			values[updatedLabelIndices[j]] = bag.value(labelIndices[j]);
 		}
 
-		return newInst;
+		return values;
 	}
 
 	@Override
@@ -252,7 +398,7 @@ public class KMeansTransformation extends MIMLtoML {
 		attributes.add(attr);
 
 		// Adds attributes for prototypes
-		int numClusters = clusterer.getNumClusters();
+		int numClusters = prototypes.numInstances();
 		for (int k = 1; k <= numClusters; k++) {
 			attr = new Attribute("similarityToPrototype_" + k);
 			attributes.add(attr);
@@ -387,40 +533,191 @@ public class KMeansTransformation extends MIMLtoML {
 		return min_sim;
 	}
 
+	/**
+	 * Normalizes the prototypes with the ranges of dfunc and stores them in a flat
+	 * array to compute similarities with {@link #similarities(MIMLBag)}. If some
+	 * attribute is not numeric, prototypeValues is set to null.
+	 * 
+	 * @throws Exception To be handled in an upper level.
+	 */
+	protected void preparePrototypeValues() throws Exception {
+
+		int nAttributes = prototypes.numAttributes();
+		prototypeValues = null;
+		for (int j = 0; j < nAttributes; j++)
+			if (!prototypes.attribute(j).isNumeric())
+				return;
+
+		// The ranges are copied so later updates of dfunc do not modify them
+		double[][] current = dfunc.getRanges();
+		ranges = new double[nAttributes][];
+		for (int j = 0; j < nAttributes; j++)
+			ranges[j] = current[j].clone();
+
+		int nClusters = prototypes.numInstances();
+		prototypeValues = new double[nClusters * nAttributes];
+		for (int k = 0; k < nClusters; k++)
+			normalize(prototypes.instance(k).toDoubleArray(), prototypeValues, k * nAttributes);
+	}
+
+	/**
+	 * Normalizes the values of an instance with the ranges of dfunc. Missing values
+	 * are kept as NaN.
+	 * 
+	 * @param values The values of the instance.
+	 * @param target The array where normalized values are stored.
+	 * @param offset The position of the instance in target.
+	 */
+	protected void normalize(double[] values, double[] target, int offset) {
+		for (int j = 0; j < values.length; j++)
+			target[offset + j] = HausdorffDistance.normalize(values[j], ranges[j]);
+	}
+
+	/**
+	 * Computes the similarity between a bag and every prototype in a single pass
+	 * over the instances of the bag. Each instance is normalized once and its
+	 * squared distances to all prototypes are computed over the flat array of
+	 * prototypes. As similarity decreases with distance, the minimum similarity of
+	 * each prototype is obtained from the maximum distance, so only an exponential
+	 * per prototype is computed. Results are the same as those of
+	 * {@link #similarity(Instance, MIMLBag, double)}.
+	 * 
+	 * @param bag A bag.
+	 * @return The similarity of the bag to each prototype.
+	 * @throws Exception To be handled in an upper level.
+	 */
+	protected double[] similarities(MIMLBag bag) throws Exception {
+
+		int nClusters = prototypes.numInstances();
+		int nAttributes = ranges.length;
+		double[] similarities = new double[nClusters];
+
+		Instances instances = bag.getBagAsInstances();
+		if (instances.numInstances() == 0)
+			return similarities;
+
+		double[] maxDistance = new double[nClusters];
+		double[] x = new double[nAttributes];
+		for (int i = 0; i < instances.numInstances(); i++) {
+			normalize(instances.instance(i).toDoubleArray(), x, 0);
+			for (int k = 0, offset = 0; k < nClusters; k++, offset += nAttributes) {
+				double distance = 0;
+				for (int j = 0; j < nAttributes; j++) {
+					double diff = HausdorffDistance.difference(prototypeValues[offset + j], x[j]);
+					distance += diff * diff;
+				}
+				if (distance > maxDistance[k])
+					maxDistance[k] = distance;
+			}
+		}
+
+		for (int k = 0; k < nClusters; k++) {
+			double dist = Math.sqrt(maxDistance[k]);
+			similarities[k] = Math.exp(-((dist * dist) / delta[k]));
+		}
+		return similarities;
+	}
+
 	/**
 	 * Computes the delta value for each cluster that is used for similarity
 	 * computation. This value is computed as the average distance between all pair
-	 * of instances in each cluster.
+	 * of instances in each cluster. Instances are grouped by cluster in one pass
+	 * and clusters are processed in parallel by numThreads threads. Clusters with
+	 * more pairs than deltaSampleSize (unless it is -1) are estimated with a random
+	 * sample of deltaSampleSize pairs. Clusters with less than two
+	 * instances take the average delta of the rest of clusters.
 	 * 
 	 * @param clusterAssignment A vector of nInstances elements with the indices of
 	 *                          the clusters assigned to each one.
 	 * @param singleInstances   The instances used for clustering.
 	 * @return A vector of nClusters with the delta value for each cluster.
+	 * @throws Exception To be handled in an upper level.
 	 */
-	protected double[] computeDelta(int clusterAssignment[], Instances singleInstances) {
+	protected double[] computeDelta(int clusterAssignment[], Instances singleInstances) throws Exception {
+		return computeDelta(clusterAssignment, singleInstances.numInstances(), singleInstances::instance);
+	}
 
-		int nClusters = clusterAssignment.length;
-		int nInstances = singleInstances.numInstances();
+	/**
+	 * Computes the delta value for each cluster as in
+	 * {@link #computeDelta(int[], Instances)}, reading the instances used for
+	 * clustering by their index.
+	 * 
+	 * @param clusterAssignment A vector of nInstances elements with the indices of
+	 *                          the clusters assigned to each one.
+	 * @param nInstances        The number of instances used for clustering.
+	 * @param instanceAt        The instance used for clustering given its index.
+	 * @return A vector of nClusters with the delta value for each cluster.
+	 * @throws Exception To be handled in an upper level.
+	 */
+	protected double[] computeDelta(int clusterAssignment[], int nInstances, IntFunction<Instance> instanceAt)
+			throws Exception {
+
+		// empty clusters are also considered when prototypes are available
+		int nClusters = prototypes != null ? prototypes.numInstances() : 0;
+		for (int i = 0; i < nInstances; i++)
+			nClusters = Math.max(nClusters, clusterAssignment[i] + 1);
+
+		// groups the indices of the instances by cluster
+		int[] sizes = new int[nClusters];
+		for (int i = 0; i < nInstances; i++)
+			sizes[clusterAssignment[i]]++;
+		int[][] members = new int[nClusters][];
+		for (int k = 0; k < nClusters; k++)
+			members[k] = new int[sizes[k]];
+		int[] filled = new int[nClusters];
+		for (int i = 0; i < nInstances; i++) {
+			int k = clusterAssignment[i];
+			members[k][filled[k]++] = i;
+		}
 
-		delta = new double[nClusters];
+		// the distance function is validated before being shared among threads
+		if (nInstances > 0)
+			dfunc.distance(instanceAt.apply(0), instanceAt.apply(0));
 
-		for (int k = 0; k < nClusters; k++) {
+		double[] newDelta = new double[nClusters];
+		Utils.parallelFor(nClusters, numThreads, k -> {
+			int[] m = members[k];
+			long nPairs = (long) m.length * (m.length - 1) / 2;
 			double sumDistances_k = 0;
-			int instances_k = 0;
-			for (int i = 0; i < nInstances; i++) {
-				if (clusterAssignment[i] == k) {
-					for (int j = i + 1; j < nInstances; j++) {
-						if (clusterAssignment[j] == k) {
-							instances_k++;
-							sumDistances_k = dfunc.distance(singleInstances.instance(i), singleInstances.instance(j));
-						}
+			long pairs_k = 0;
+			if (deltaSampleSize == -1 || nPairs <= deltaSampleSize) {
+				for (int i = 0; i < m.length; i++) {
+					Instance first = instanceAt.apply(m[i]);
+					for (int j = i + 1; j < m.length; j++) {
+						sumDistances_k += dfunc.distance(first, instanceAt.apply(m[j]));
+						pairs_k++;
 					}
-
+				}
+			} else {
+				// the seed depends on the cluster so that results do not depend on threads
+				Random random = new Random(seed + k);
+				for (int s = 0; s < deltaSampleSize; s++) {
+					int i = random.nextInt(m.length);
+					int j = random.nextInt(m.length - 1);
+					if (j >= i)
+						j++;
+					sumDistances_k += dfunc.distance(instanceAt.apply(m[i]), instanceAt.apply(m[j]));
+					pairs_k++;
 				}
 			}
-			delta[k] = sumDistances_k / instances_k;
+			newDelta[k] = sumDistances_k / pairs_k;
+		});
+
+		// clusters with less than two instances take the average delta of the rest
+		double sumDelta = 0;
+		int validDelta = 0;
+		for (int k = 0; k < nClusters; k++) {
+			if (!Double.isNaN(newDelta[k])) {
+				sumDelta += newDelta[k];
+				validDelta++;
+			}
+		}
+		for (int k = 0; k < nClusters; k++) {
+			if (Double.isNaN(newDelta[k]))
+				newDelta[k] = validDelta > 0 ? sumDelta / validDelta : 1;
 		}
 
+		delta = newDelta;
 		return delta;
 	}
 
@@ -543,4 +840,61 @@ public class KMeansTransformation extends MIMLtoML {
 	public void setPercentage(double percentage) {
 		this.percentage = percentage;
 	}
+
+	/**
+	 * Returns the maximum number of pairs of instances used to estimate the delta
+	 * value of a cluster.
+	 * 
+	 * @return int
+	 */
+	public int getDeltaSampleSize() {
+		return deltaSampleSize;
+	}
+
+	/**
+	 * Sets the maximum number of pairs of instances used to estimate the delta
+	 * value of a cluster. If it is -1, all pairs are used.
+	 * 
+	 * @param deltaSampleSize The maximum number of pairs.
+	 */
+	public void setDeltaSampleSize(int deltaSampleSize) {
+		this.deltaSampleSize = deltaSampleSize;
+	}
+
+	/**
+	 * Returns the size of the batches of mini-batch k-means.
+	 * 
+	 * @return int
+	 */
+	public int getMiniBatchSize() {
+		return miniBatchSize;
+	}
+
+	/**
+	 * Sets the size of the batches of mini-batch k-means. If it is -1,
+	 * SimpleKMeans is used for clustering.
+	 * 
+	 * @param miniBatchSize The number of instances in each batch.
+	 */
+	public void setMiniBatchSize(int miniBatchSize) {
+		this.miniBatchSize = miniBatchSize;
+	}
+
+	/**
+	 * Returns the number of iterations (batches) of mini-batch k-means.
+	 * 
+	 * @return int
+	 */
+	public int getMiniBatchIterations() {
+		return miniBatchIterations;
+	}
+
+	/**
+	 * Sets the number of iterations (batches) of mini-batch k-means.
+	 * 
+	 * @param miniBatchIterations The number of iterations.
+	 */
+	public void setMiniBatchIterations(int miniBatchIterations) {
+		this.miniBatchIterations = miniBatchIterations;
+	}
 }
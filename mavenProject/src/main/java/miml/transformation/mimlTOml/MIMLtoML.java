@@ -15,11 +15,18 @@
 package miml.transformation.mimlTOml;
 
 import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
+import miml.core.Utils;
 import miml.data.MIMLBag;
 import miml.data.MIMLInstances;
 import mulan.data.MultiLabelInstances;
 import weka.core.Attribute;
+import weka.core.DenseInstance;
 import weka.core.Instance;
 import weka.core.Instances;
 
@@ -47,6 +54,86 @@ public abstract class MIMLtoML implements Serializable {
 	/** Original data set of MIMLInstances. */
 	protected MIMLInstances dataset = null;
 
+	/**
+	 * The number of threads used to transform the bags of a dataset. A value less
+	 * than 1 means that all available processors are used. By default 1.
+	 */
+	protected int numThreads = 1;
+
+	/**
+	 * Whether transformed bags are cached. Only transformations whose result for a
+	 * bag does not depend on the training set (i.e. Arithmetic, Geometric and
+	 * MinMax) use the cache. As bags are identified by reference, values of a bag
+	 * modified in place after being transformed are not seen by the cache, so it
+	 * must be cleared with {@link #clearCache()} in that case. By default false.
+	 */
+	protected boolean useCache = false;
+
+	/**
+	 * Transformed features of bags for each transformation class. Bags are
+	 * identified by their relational value, which is shared by the copies of a bag
+	 * (i.e. the folds of a cross-validation), so each bag of a dataset is
+	 * transformed once. Bags are weakly referenced and entries are released with
+	 * their dataset. Bags are expected not to be modified once transformed.
+	 */
+	private static final Map<Class<?>, Map<Instances, double[]>> cache = new ConcurrentHashMap<Class<?>, Map<Instances, double[]>>();
+
+	/**
+	 * Transformation of a single bag into the values of an instance with the
+	 * structure of the template.
+	 */
+	@FunctionalInterface
+	protected interface BagTransformation {
+
+		/**
+		 * Transforms a bag.
+		 * 
+		 * @param index The index of the bag in the dataset.
+		 * @param bag   The bag.
+		 * @return The values of the transformed instance.
+		 * @throws Exception To be handled in an upper level.
+		 */
+		double[] transform(int index, MIMLBag bag) throws Exception;
+	}
+
+	/**
+	 * Computation of the transformed features of a bag that depend only on its
+	 * instances.
+	 */
+	@FunctionalInterface
+	protected interface BagFeatures {
+
+		/**
+		 * Computes the features of a bag.
+		 * 
+		 * @param instances The instances of the bag.
+		 * @return The features of the bag.
+		 * @throws Exception To be handled in an upper level.
+		 */
+		double[] compute(Instances instances) throws Exception;
+	}
+
+	/** Row of {@link #bagStatistics(Instances)} with the mean of each attribute. */
+	public static final int MEAN = 0;
+
+	/**
+	 * Row of {@link #bagStatistics(Instances)} with the minimal value of each
+	 * attribute.
+	 */
+	public static final int MIN = 1;
+
+	/**
+	 * Row of {@link #bagStatistics(Instances)} with the maximal value of each
+	 * attribute.
+	 */
+	public static final int MAX = 2;
+
+	/**
+	 * Row of {@link #bagStatistics(Instances)} with the geometric center of each
+	 * attribute, (min+max)/2.
+	 */
+	public static final int CENTER = 3;
+
 	/**
 	 * Constructor that sets the dataset
 	 * 
@@ -90,6 +177,110 @@ public abstract class MIMLtoML implements Serializable {
 	 */
 	public abstract Instance transformInstance(MIMLBag bag) throws Exception;
 
+	/**
+	 * Computes the values of the transformed instance of a bag with the structure
+	 * of the template. By default, the values of {@link #transformInstance(MIMLBag)}
+	 * are returned.
+	 * 
+	 * @param bag The bag to be transformed.
+	 * @return The values of the transformed instance.
+	 * @throws Exception To be handled in an upper level.
+	 */
+	protected double[] transformValues(MIMLBag bag) throws Exception {
+		return transformInstance(bag).toDoubleArray();
+	}
+
+	/**
+	 * Computes the position in the template of each attribute of a header, i.e.
+	 * the header of the transformed dataset without the bagId attribute used by a
+	 * multi-label learner. Attributes are matched by name.
+	 * 
+	 * @param header The header whose attributes are mapped onto the template.
+	 * @return An array with the index in the template of each attribute of the
+	 *         header.
+	 * @throws Exception If an attribute of the header is not in the template.
+	 */
+	public int[] attributeMapping(Instances header) throws Exception {
+		int[] mapping = new int[header.numAttributes()];
+		for (int j = 0; j < mapping.length; j++) {
+			Attribute attr = template.attribute(header.attribute(j).name());
+			if (attr == null)
+				throw new Exception("The attribute " + header.attribute(j).name() + " is not in the template.");
+			mapping[j] = attr.index();
+		}
+		return mapping;
+	}
+
+	/**
+	 * Transforms {@link MIMLBag} into an Instance with the structure of a given
+	 * header, such as the header without the bagId attribute used by a multi-label
+	 * learner. The values of the transformed bag are copied into the new instance
+	 * according to a mapping computed by {@link #attributeMapping(Instances)}, so
+	 * no filter is applied.
+	 * 
+	 * @param bag     The Bag to be transformed.
+	 * @param header  The header of the resulting instance.
+	 * @param mapping The index in the template of each attribute of the header.
+	 * @return Instance
+	 * @throws Exception To be handled in an upper level.
+	 */
+	public Instance transformInstance(MIMLBag bag, Instances header, int[] mapping) throws Exception {
+		double[] values = transformValues(bag);
+		double[] mapped = new double[mapping.length];
+		for (int j = 0; j < mapping.length; j++)
+			mapped[j] = values[mapping[j]];
+
+		Instance newInst = new DenseInstance(1.0, mapped);
+		newInst.setDataset(header);
+		return newInst;
+	}
+
+	/**
+	 * Transforms all bags of a dataset into instances with
+	 * {@link #transformInstance(MIMLBag)}. Bags are transformed by the number of
+	 * threads given by {@link #getPredictionThreads()}.
+	 * 
+	 * @param data The dataset to be transformed.
+	 * @return The transformed instance of each bag.
+	 * @throws Exception To be handled in an upper level.
+	 */
+	public Instance[] transformInstances(MIMLInstances data) throws Exception {
+		Instance[] instances = new Instance[data.getNumBags()];
+		Utils.parallelFor(instances.length, getPredictionThreads(),
+				i -> instances[i] = transformInstance(data.getBag(i)));
+		return instances;
+	}
+
+	/**
+	 * Transforms all bags of a dataset into instances with the structure of a
+	 * given header with {@link #transformInstance(MIMLBag, Instances, int[])}.
+	 * Bags are transformed by the number of threads given by
+	 * {@link #getPredictionThreads()}.
+	 * 
+	 * @param data    The dataset to be transformed.
+	 * @param header  The header of the resulting instances.
+	 * @param mapping The index in the template of each attribute of the header.
+	 * @return The transformed instance of each bag.
+	 * @throws Exception To be handled in an upper level.
+	 */
+	public Instance[] transformInstances(MIMLInstances data, Instances header, int[] mapping) throws Exception {
+		Instance[] instances = new Instance[data.getNumBags()];
+		Utils.parallelFor(instances.length, getPredictionThreads(),
+				i -> instances[i] = transformInstance(data.getBag(i), header, mapping));
+		return instances;
+	}
+
+	/**
+	 * Gets the number of threads used to transform the bags of a dataset once the
+	 * transformation has been built. By default numThreads, subclasses whose
+	 * transformation of a single bag is not thread-safe return 1.
+	 * 
+	 * @return The number of threads.
+	 */
+	protected int getPredictionThreads() {
+		return numThreads;
+	}
+
 	/**
 	 * Prepares a template to perform the transformation from MIMLInstances to
 	 * MultiLabelInstances. This template includes: the bag label attribute, all
@@ -139,6 +330,98 @@ public abstract class MIMLtoML implements Serializable {
 		}
 	}
 
+	/**
+	 * Transforms all bags of a dataset into a new dataset with the structure of the
+	 * template. Bags are transformed in parallel by numThreads threads, each one
+	 * writing the values of its bags by index, so the order of the resulting
+	 * dataset is the order of the bags regardless of the number of threads.
+	 * 
+	 * @param data           The dataset to be transformed.
+	 * @param transformation The transformation of a single bag.
+	 * @return The transformed dataset.
+	 * @throws Exception To be handled in an upper level.
+	 */
+	protected Instances transformBags(MIMLInstances data, BagTransformation transformation) throws Exception {
+		int nBags = data.getNumBags();
+		double[][] values = new double[nBags][];
+
+		Utils.parallelFor(nBags, numThreads, i -> values[i] = transformation.transform(i, data.getBag(i)));
+
+		Instances newData = new Instances(template, nBags);
+		for (int i = 0; i < nBags; i++) {
+			newData.add(new DenseInstance(1.0, values[i]));
+		}
+		return newData;
+	}
+
+	/**
+	 * Gets the features of a bag from the cache of this transformation class,
+	 * computing them if the bag has not been transformed yet. The returned array
+	 * must not be modified.
+	 * 
+	 * @param instances The instances of the bag (i.e. its relational value).
+	 * @param features  The computation of the features of the bag.
+	 * @return The features of the bag.
+	 * @throws Exception To be handled in an upper level.
+	 */
+	protected double[] cachedFeatures(Instances instances, BagFeatures features) throws Exception {
+		if (!useCache)
+			return features.compute(instances);
+
+		Map<Instances, double[]> classCache = cache.computeIfAbsent(getClass(),
+				c -> Collections.synchronizedMap(new WeakHashMap<Instances, double[]>()));
+		double[] values = classCache.get(instances);
+		if (values == null) {
+			values = features.compute(instances);
+			classCache.put(instances, values);
+		}
+		return values;
+	}
+
+	/**
+	 * Removes all transformed bags from the cache.
+	 */
+	public static void clearCache() {
+		cache.clear();
+	}
+
+	/**
+	 * Returns whether transformed bags are cached.
+	 * 
+	 * @return True if transformed bags are cached.
+	 */
+	public boolean isUseCache() {
+		return useCache;
+	}
+
+	/**
+	 * Sets whether transformed bags are cached.
+	 * 
+	 * @param useCache The value of the property.
+	 */
+	public void setUseCache(boolean useCache) {
+		this.useCache = useCache;
+	}
+
+	/**
+	 * Returns the number of threads used to transform the bags of a dataset.
+	 * 
+	 * @return The number of threads.
+	 */
+	public int getNumThreads() {
+		return numThreads;
+	}
+
+	/**
+	 * Sets the number of threads used to transform the bags of a dataset. A value
+	 * less than 1 means that all available processors are used.
+	 * 
+	 * @param numThreads The number of threads.
+	 */
+	public void setNumThreads(int numThreads) {
+		this.numThreads = numThreads;
+	}
+
 	/**
 	 * Get the minimal and maximal value of a certain attribute in a data set.
 	 *
@@ -163,4 +446,54 @@ public abstract class MIMLtoML implements Serializable {
 
 		return rt;
 	}
+
+	/**
+	 * Computes the mean, minimal value, maximal value and geometric center of all
+	 * attributes of a data set in a single pass over its instances. The mean is
+	 * computed as {@link Instances#meanOrMode(int)} and the minimal and maximal
+	 * values as {@link #minimax(Instances, int)}.
+	 *
+	 * @param data The data set (i.e. the instances of a bag).
+	 * @return double[][] with a row for each statistic ({@link #MEAN},
+	 *         {@link #MIN}, {@link #MAX} and {@link #CENTER}) and a column for each
+	 *         attribute.
+	 */
+	public static double[][] bagStatistics(Instances data) {
+		int nAttributes = data.numAttributes();
+		double[][] stats = new double[4][nAttributes];
+		double[] weights = new double[nAttributes];
+		Arrays.fill(stats[MIN], Double.POSITIVE_INFINITY);
+		Arrays.fill(stats[MAX], Double.NEGATIVE_INFINITY);
+
+		for (int i = 0; i < data.numInstances(); i++) {
+			Instance instance = data.instance(i);
+			double weight = instance.weight();
+			for (int j = 0; j < nAttributes; j++) {
+				double val = instance.value(j);
+				if (!Double.isNaN(val)) {
+					weights[j] += weight;
+					stats[MEAN][j] += weight * val;
+				}
+				if (val > stats[MAX][j])
+					stats[MAX][j] = val;
+				if (val < stats[MIN][j])
+					stats[MIN][j] = val;
+			}
+		}
+
+		for (int j = 0; j < nAttributes; j++) {
+			if (!data.attribute(j).isNumeric())
+				stats[MEAN][j] = data.meanOrMode(j);
+			else
+				stats[MEAN][j] = weights[j] > 0 ? stats[MEAN][j] / weights[j] : 0;
+
+			if (Double.isInfinite(stats[MIN][j]))
+				stats[MIN][j] = Double.NaN;
+			if (Double.isInfinite(stats[MAX][j]))
+				stats[MAX][j] = Double.NaN;
+			stats[CENTER][j] = (stats[MIN][j] + stats[MAX][j]) / 2.0;
+		}
+
+		return stats;
+	}
 }
@@ -17,6 +17,7 @@ package miml.transformation.mimlTOml;
 import java.util.ArrayList;
 
 import miml.clusterers.KMedoids;
+import miml.core.distance.HausdorffDistance;
 import miml.core.distance.IDistance;
 import miml.data.MIMLBag;
 import miml.data.MIMLInstances;
@@ -35,7 +36,10 @@ import weka.core.Instances;
  * 2291-2320. </em>
  * 
  * This class requires method transformDataset to have been executed before
- * executing transformInstance method.
+ * executing transformInstance method. If the distance is a Hausdorff distance,
+ * new bags are transformed with the normalization of the training bags frozen,
+ * so the transformation of a bag does not depend on the bags transformed
+ * before.
  * 
  * @author Eva Gibaja
  * @version 20230412
@@ -77,6 +81,30 @@ public class MedoidTransformation extends MIMLtoML {
 	/** The seed for kmedoids clustering. By default 1. */
 	protected int seed = 1;
 
+	/**
+	 * If it is greater than 0, kmedoids uses CLARA with samples of this number of
+	 * bags instead of computing the distances between all bags. By default -1.
+	 */
+	protected int sampleSize = -1;
+
+	/** The number of samples drawn by CLARA. By default 5. */
+	protected int numSamples = 5;
+
+	/**
+	 * Whether CLARA reuses the distances to the best medoids found so far. By
+	 * default true.
+	 */
+	protected boolean cacheDistances = true;
+
+	/**
+	 * Ranges of the attributes of the instances of the training bags, used to
+	 * normalize new bags. It is null if the distance is not a Hausdorff distance.
+	 */
+	protected double[][] ranges;
+
+	/** Medoids packed with {@link HausdorffDistance#pack(Instances, double[][])}. */
+	protected double[][] packedMedoids;
+
 	/**
 	 * Constructor. Uses the same default number of clusters as MIMLSVM: 20% of
 	 * number of bags
@@ -167,6 +195,53 @@ public class MedoidTransformation extends MIMLtoML {
 				"\t" + clusterer.numberOfClusters() + " clusters in " + clusterer.getNumIterations() + " iterations");
 		prepareTemplate();
 		template.setRelationName(dataset.getDataSet().relationName() + "_medoid_transformation");
+		packMedoids();
+	}
+
+	/**
+	 * Freezes the normalization of the distance and packs the medoids to compute
+	 * the distances of new bags to them. Only Hausdorff distances on numeric
+	 * attributes are supported, otherwise the distance of the clusterer is used.
+	 * 
+	 * @throws Exception To be handled in an upper level.
+	 */
+	protected void packMedoids() throws Exception {
+		ranges = null;
+		packedMedoids = null;
+
+		if (!(clusterer.getDistanceFunction() instanceof HausdorffDistance))
+			return;
+		Instances relationalHeader = dataset.getDataSet().attribute(1).relation();
+		for (int j = 0; j < relationalHeader.numAttributes(); j++)
+			if (!relationalHeader.attribute(j).isNumeric())
+				return;
+
+		ranges = ((HausdorffDistance) clusterer.getDistanceFunction()).getRanges();
+		Instance[] medoids = clusterer.getMedoidInstances();
+		packedMedoids = new double[medoids.length][];
+		for (int k = 0; k < medoids.length; k++)
+			packedMedoids[k] = HausdorffDistance.pack(medoids[k].relationalValue(1), ranges);
+	}
+
+	/**
+	 * Computes the distances of a new bag to the medoids. If medoids are packed,
+	 * the bag is packed with the frozen normalization and distances are computed
+	 * over the flat arrays. Otherwise the distance of the clusterer is used.
+	 * 
+	 * @param bag The bag.
+	 * @return The distance of the bag to each medoid.
+	 * @throws Exception To be handled in an upper level.
+	 */
+	protected double[] distanceToMedoids(MIMLBag bag) throws Exception {
+		if (packedMedoids == null)
+			return clusterer.distanceToMedoids(bag);
+
+		HausdorffDistance metric = (HausdorffDistance) clusterer.getDistanceFunction();
+		double[] packed = HausdorffDistance.pack(bag.getBagAsInstances(), ranges);
+		double[] distances = new double[packedMedoids.length];
+		for (int k = 0; k < packedMedoids.length; k++)
+			distances[k] = metric.distance(packedMedoids[k], packed, ranges.length);
+		return distances;
 	}
 
 	@Override
@@ -175,39 +250,9 @@ public class MedoidTransformation extends MIMLtoML {
 		// Clustering with kmedoids step
 		clusteringStep();
 
-		// Transformation step
-		Instances newData = new Instances(template);
-		int labelIndices[] = dataset.getLabelIndices();
-		Instance newInst = new DenseInstance(newData.numAttributes());
-		newInst.setDataset(newData); // Sets the reference to the dataset
-
-		// For all bags in the dataset
-		double nBags = dataset.getNumBags();
-		int numClusters = clusterer.numberOfClusters();
-		for (int i = 0; i < nBags; i++) {
-
-			// retrieves a bag
-			MIMLBag bag = dataset.getBag(i);
-
-			// sets the bagLabel
-			newInst.setValue(0, bag.value(0));
-
-			// computes distances to medoids
-			// double[] distances = kmedoids.distanceToMedoids(bag);
-			double[] distances = clusterer.distanceToMedoids(i);
-
-			// an attribute for medoid
-			for (int k = 0, attIdx = 1; k < numClusters; k++, attIdx++) {
-				newInst.setValue(attIdx, distances[k]);
-			}
-
-			// Copy label information into the dataset
-			for (int j = 0; j < labelIndices.length; j++) {
-				newInst.setValue(updatedLabelIndices[j], bag.value(labelIndices[j]));
-			}
-			newData.add(newInst);
-
-		}
+		// Transformation step, distances of training bags to medoids are already
+		// computed
+		Instances newData = transformBags(dataset, (i, bag) -> toValues(bag, clusterer.distanceToMedoids(i)));
 
 		if (normalize == true) {
 			System.out.println("\t Performing min-max normalization on the transformed dataset.");
@@ -226,12 +271,17 @@ public class MedoidTransformation extends MIMLtoML {
 			transformed = transformDataset();
 		} else {
 			// To avoid a new clustering round if the clustering step was previously
-			// performed
-			Instances newData = new Instances(template);
-			for (int i = 0; i < dataset.getNumBags(); i++) {
-				MIMLBag bag = dataset.getBag(i);
-				Instance transfInst = transformInstance(bag);
-				newData.add(transfInst);
+			// performed. With packed medoids bags are transformed in parallel.
+			Instances newData;
+			if (packedMedoids != null) {
+				newData = transformBags(dataset, (i, bag) -> toValues(bag, distanceToMedoids(bag)));
+			} else {
+				newData = new Instances(template);
+				for (int i = 0; i < dataset.getNumBags(); i++) {
+					MIMLBag bag = dataset.getBag(i);
+					Instance transfInst = transformInstance(bag);
+					newData.add(transfInst);
+				}
 			}
 			transformed = new MultiLabelInstances(newData, dataset.getLabelsMetaData());
 		}
@@ -333,37 +383,65 @@ public class MedoidTransformation extends MIMLtoML {
 		this.normalize = normalize;
 	}
 
+	/**
+	 * Bags are transformed in parallel only with packed medoids, as the distance
+	 * of the clusterer may update its state (e.g. its ranges) with each new bag.
+	 */
+	@Override
+	protected int getPredictionThreads() {
+		return packedMedoids != null ? numThreads : 1;
+	}
+
 	@Override
 
 	public Instance transformInstance(MIMLBag bag) throws Exception {
 
+		Instance newInst = new DenseInstance(1.0, transformValues(bag));
+		newInst.setDataset(bag.dataset()); // Sets the reference to the dataset
+		return newInst;
+	}
+
+	@Override
+	protected double[] transformValues(MIMLBag bag) throws Exception {
+
 		if (!clusteringDone)
 			throw new Exception(
 					"The transformInstance method must be called after executing transformDataset that performs kmedoids clustering required by this kind of transformation.");
 
+		// computes distances to medoids, the bag could be either a bag in the clustered
+		// dataset or a new and previously unseen bag.
+		return toValues(bag, distanceToMedoids(bag));
+	}
+
+	/**
+	 * Computes the values of the transformed instance of a bag given its distances
+	 * to the medoids.
+	 * 
+	 * @param bag       The bag to be transformed.
+	 * @param distances The distance of the bag to each medoid.
+	 * @return The values of the transformed instance.
+	 * @throws Exception To be handled in an upper level.
+	 */
+	protected double[] toValues(MIMLBag bag, double[] distances) throws Exception {
+
 		int labelIndices[] = dataset.getLabelIndices();
-		Instance newInst = new DenseInstance(template.numAttributes());
+		double[] values = new double[template.numAttributes()];
 
 		// sets the bagLabel
-		newInst.setDataset(bag.dataset()); // Sets the reference to the dataset
-		newInst.setValue(0, bag.value(0));
-
-		// computes distances to medoids, the bag could be either a bag in the clustered
-		// dataset or a new and previously unseen bag.
-		double[] distance = this.clusterer.distanceToMedoids(bag);
+		values[0] = bag.value(0);
 
 		// an attribute for medoid
 		int numClusters = clusterer.numberOfClusters();
 		for (int k = 0, attIdx = 1; k < numClusters; k++, attIdx++) {
-			newInst.setValue(attIdx, distance[k]);
+			values[attIdx] = distances[k];
 		}
 
 		// Insert label information into the instance
 		for (int j = 0; j < labelIndices.length; j++) {
-			newInst.setValue(updatedLabelIndices[j], bag.value(labelIndices[j]));
+			values[updatedLabelIndices[j]] = bag.value(labelIndices[j]);
 		}
 
-		return newInst;
+		return values;
 	}
 
 	@Override
@@ -440,6 +518,16 @@ public class MedoidTransformation extends MIMLtoML {
 		System.out.println("\tSeed for clustering: " + seed);
 		setSeed(seed);
 
+		// Sets CLARA sampling in both the transformer and in the clusterer.
+		if (sampleSize > 0)
+			System.out.println("\tCLARA with " + numSamples + " samples of " + sampleSize + " bags");
+		setSampleSize(sampleSize);
+		setNumSamples(numSamples);
+		setCacheDistances(cacheDistances);
+
+		// Distances and candidate medoids are computed by the same threads as bags
+		clusterer.setNumThreads(numThreads);
+
 	}
 
 	// --------------------
@@ -545,4 +633,68 @@ public class MedoidTransformation extends MIMLtoML {
 		this.seed = seed;
 	}
 
+	/**
+	 * Gets the number of bags of the samples used by CLARA.
+	 * 
+	 * @return The sample size, -1 if CLARA is not used.
+	 */
+	public int getSampleSize() {
+		return sampleSize;
+	}
+
+	/**
+	 * Sets the number of bags of the samples used by CLARA in both the transformer
+	 * and in the clusterer. If it is -1, kmedoids computes the distances between
+	 * all bags.
+	 * 
+	 * @param sampleSize The sample size.
+	 */
+	public void setSampleSize(int sampleSize) {
+		if (this.clusterer != null)
+			clusterer.setSampleSize(sampleSize);
+		this.sampleSize = sampleSize;
+	}
+
+	/**
+	 * Gets the number of samples drawn by CLARA.
+	 * 
+	 * @return The number of samples.
+	 */
+	public int getNumSamples() {
+		return numSamples;
+	}
+
+	/**
+	 * Sets the number of samples drawn by CLARA in both the transformer and in the
+	 * clusterer.
+	 * 
+	 * @param numSamples The number of samples.
+	 */
+	public void setNumSamples(int numSamples) {
+		if (this.clusterer != null)
+			clusterer.setNumSamples(numSamples);
+		this.numSamples = numSamples;
+	}
+
+	/**
+	 * Gets whether CLARA reuses the distances to the best medoids found so far.
+	 * 
+	 * @return A true value if distances are reused.
+	 */
+	public boolean getCacheDistances() {
+		return cacheDistances;
+	}
+
+	/**
+	 * Sets whether CLARA reuses the distances to the best medoids found so far in
+	 * both the transformer and in the clusterer.
+	 * 
+	 * @param cacheDistances If true distances are reused.
+	 */
+	public void setCacheDistances(boolean cacheDistances) {
+		if (this.clusterer != null)
+			clusterer.setCacheDistances(cacheDistances);
+		this.cacheDistances = cacheDistances;
+	}
+
 }
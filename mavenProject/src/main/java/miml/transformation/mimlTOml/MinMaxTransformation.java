@@ -15,6 +15,7 @@
 package miml.transformation.mimlTOml;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import miml.data.MIMLBag;
 import miml.data.MIMLInstances;
@@ -87,34 +88,7 @@ public class MinMaxTransformation extends MIMLtoML {
 	@Override
 	public MultiLabelInstances transformDataset() throws Exception {
 
-		Instances newData = new Instances(template);
-		int labelIndices[] = dataset.getLabelIndices();
-		Instance newInst = new DenseInstance(newData.numAttributes());
-		newInst.setDataset(newData); // Sets the reference to the dataset
-
-		// For all bags in the dataset
-		double nBags = dataset.getNumBags();
-		for (int i = 0; i < nBags; i++) {
-			// retrieves a bag
-			MIMLBag bag = dataset.getBag(i);
-			// sets the bagLabel
-			newInst.setValue(0, bag.value(0));
-
-			// retrieves instances (relational value) for each bag
-			Instances instances = bag.getBagAsInstances();
-			// For all attributes in bag
-			for (int j = 0, attIdx = 1; j < instances.numAttributes(); j++, attIdx++) {
-				double[] minimax = minimax(instances, j);
-				newInst.setValue(attIdx, minimax[0]);// minimal value
-				newInst.setValue(attIdx + instances.numAttributes(), minimax[1]);// maximal value);
-			}
-			// Copy label information into the dataset
-			for (int j = 0; j < labelIndices.length; j++) {
-				newInst.setValue(updatedLabelIndices[j], bag.value(labelIndices[j]));
-			}
-			newData.add(newInst);
-
-		}
+		Instances newData = transformBags(dataset, (i, bag) -> transformValues(bag));
 		return new MultiLabelInstances(newData, dataset.getLabelsMetaData());
 	}
 
@@ -130,29 +104,42 @@ public class MinMaxTransformation extends MIMLtoML {
 
 	@Override
 	public Instance transformInstance(MIMLBag bag) throws Exception {
+		Instance newInst = new DenseInstance(1.0, transformValues(bag));
+		newInst.setDataset(bag.dataset()); // Sets the reference to the dataset
+		return newInst;
+	}
+
+	/**
+	 * Computes the values of the transformed instance of a bag.
+	 * 
+	 * @param bag The bag to be transformed.
+	 * @return The values of the transformed instance.
+	 * @throws Exception To be handled in an upper level.
+	 */
+	protected double[] transformValues(MIMLBag bag) throws Exception {
 		int labelIndices[] = dataset.getLabelIndices();
-		Instance newInst = new DenseInstance(template.numAttributes());
+		double[] values = new double[template.numAttributes()];
 
 		// sets the bagLabel
-		newInst.setDataset(bag.dataset()); // Sets the reference to the dataset
-		newInst.setValue(0, bag.value(0));
+		values[0] = bag.value(0);
 
 		// retrieves instances (relational value)
 		Instances instances = bag.getBagAsInstances();
-		// For all attributes in bag
-		for (int j = 0, attIdx = 1; j < instances.numAttributes(); j++, attIdx++) {
-			double[] minimax = minimax(instances, j);
-			newInst.setValue(attIdx, minimax[0]);// minimal value
-			newInst.setValue(attIdx + instances.numAttributes(), minimax[1]);// maximal
-																				// value);
-		}
+		double[] minMax = cachedFeatures(instances, bagInstances -> {
+			double[][] stats = bagStatistics(bagInstances);
+			double[] features = Arrays.copyOf(stats[MIN], 2 * bagInstances.numAttributes());
+			System.arraycopy(stats[MAX], 0, features, bagInstances.numAttributes(), bagInstances.numAttributes());
+			return features;
+		});
+		// For all attributes in bag, minimal values and then maximal values
+		System.arraycopy(minMax, 0, values, 1, minMax.length);
 
 		// Insert label information into the instance
 		for (int j = 0; j < labelIndices.length; j++) {
-			newInst.setValue(updatedLabelIndices[j], bag.value(labelIndices[j]));
+			values[updatedLabelIndices[j]] = bag.value(labelIndices[j]);
 		}
 
-		return newInst;
+		return values;
 	}
 
 	public Instance transformInstance(MIMLInstances dataset, MIMLBag bag) throws Exception {
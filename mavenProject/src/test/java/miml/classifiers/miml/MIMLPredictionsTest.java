@@ -0,0 +1,90 @@
+/*    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 2 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program; if not, write to the Free Software
+ *    Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package miml.classifiers.miml;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import mulan.classifier.MultiLabelOutput;
+
+/**
+ * Tests that {@link MIMLPredictions} packs bipartitions of more than 64 labels
+ * into several words without mixing the labels of different bags.
+ *
+ * @author Eva Gibaja
+ * @version 20261019
+ */
+public class MIMLPredictionsTest extends TestCase {
+
+	/** The number of labels, which needs three words per bag. */
+	private static final int NUM_LABELS = 130;
+
+	/** The number of bags. */
+	private static final int NUM_BAGS = 20;
+
+	/**
+	 * Creates random predictions.
+	 *
+	 * @param random The random generator.
+	 * @return The predictions.
+	 */
+	private static MultiLabelOutput[] randomOutputs(Random random) {
+		MultiLabelOutput[] outputs = new MultiLabelOutput[NUM_BAGS];
+		for (int b = 0; b < NUM_BAGS; b++) {
+			boolean[] bipartition = new boolean[NUM_LABELS];
+			double[] confidences = new double[NUM_LABELS];
+			for (int j = 0; j < NUM_LABELS; j++) {
+				confidences[j] = random.nextDouble();
+				bipartition[j] = confidences[j] > 0.5;
+			}
+			// The first and last label of each word are relevant in some bags
+			bipartition[63] = bipartition[64] = bipartition[NUM_LABELS - 1] = b % 2 == 0;
+			outputs[b] = new MultiLabelOutput(bipartition, confidences);
+		}
+		return outputs;
+	}
+
+	public void testPackingOfManyLabels() {
+		MultiLabelOutput[] outputs = randomOutputs(new Random(1));
+		MIMLPredictions predictions = new MIMLPredictions(NUM_BAGS, NUM_LABELS, outputs[0]);
+		// Bags are set in reverse order so that each bag overwrites a zeroed block
+		for (int b = NUM_BAGS - 1; b >= 0; b--)
+			predictions.set(b, outputs[b]);
+
+		assertEquals(NUM_BAGS * 3, predictions.getBipartitions().length);
+		for (int b = 0; b < NUM_BAGS; b++) {
+			boolean[] expected = outputs[b].getBipartition();
+			assertTrue("Bag " + b, Arrays.equals(expected, predictions.getBipartition(b)));
+			for (int j = 0; j < NUM_LABELS; j++)
+				assertEquals("Bag " + b + " label " + j, expected[j], predictions.isRelevant(b, j));
+			assertTrue("Bag " + b, Arrays.equals(outputs[b].getConfidences(), predictions.getConfidences(b)));
+			assertEquals("Bag " + b, outputs[b], predictions.getOutput(b));
+		}
+	}
+
+	public void testSetOverwritesPreviousPrediction() {
+		Random random = new Random(2);
+		MultiLabelOutput[] first = randomOutputs(random);
+		MultiLabelOutput[] second = randomOutputs(random);
+		MIMLPredictions predictions = MIMLPredictions.fromOutputs(first, NUM_LABELS);
+		for (int b = 0; b < NUM_BAGS; b++)
+			predictions.set(b, second[b]);
+
+		for (int b = 0; b < NUM_BAGS; b++)
+			assertTrue("Bag " + b, Arrays.equals(second[b].getBipartition(), predictions.getBipartition(b)));
+	}
+}
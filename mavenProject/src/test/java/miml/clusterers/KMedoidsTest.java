@@ -0,0 +1,122 @@
+/*    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 2 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program; if not, write to the Free Software
+ *    Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package miml.clusterers;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+import miml.core.distance.MaximalHausdorff;
+import miml.data.MIMLInstances;
+import weka.core.Instances;
+
+/**
+ * Tests that, from the same BUILD initialization, the SWAP step of FasterPAM
+ * reaches medoids at least as good as those of the greedy SWAP step of PAM, that
+ * it reports the cost of its medoids and that no single swap improves them.
+ *
+ * @author Eva Gibaja
+ * @version 20261019
+ */
+public class KMedoidsTest extends TestCase {
+
+	/** The number of bags clustered. */
+	private static final int NUM_BAGS = 80;
+
+	/** The bags clustered. */
+	private Instances data;
+
+	@Override
+	protected void setUp() throws Exception {
+		MIMLInstances birds = new MIMLInstances("data/miml_birds_random_80train.arff", "data/miml_birds.xml");
+		data = new Instances(birds.getDataSet(), 0, NUM_BAGS);
+	}
+
+	/**
+	 * Clusters the bags.
+	 *
+	 * @param numClusters The number of clusters.
+	 * @param fasterPAM   Whether FasterPAM is used.
+	 * @return The clusterer.
+	 * @throws Exception If the clustering fails.
+	 */
+	private KMedoids cluster(int numClusters, boolean fasterPAM) throws Exception {
+		KMedoids kMedoids = new KMedoids(numClusters, 100, new MaximalHausdorff());
+		kMedoids.setSeed(1);
+		kMedoids.setRandomInitialization(false);
+		kMedoids.setFasterPAM(fasterPAM);
+		kMedoids.buildClusterer(data);
+		return kMedoids;
+	}
+
+	/**
+	 * Computes the cost of a set of medoids, assigning each instance to its
+	 * nearest medoid.
+	 *
+	 * @param distances The distances between instances.
+	 * @param medoids   The indices of the medoids.
+	 * @return The sum of the distances of the instances to their nearest medoid.
+	 */
+	private static double cost(double[][] distances, int[] medoids) {
+		double cost = 0;
+		for (int i = 0; i < distances.length; i++) {
+			double nearest = Double.POSITIVE_INFINITY;
+			for (int m : medoids)
+				nearest = Math.min(nearest, distances[i][m]);
+			cost += nearest;
+		}
+		return cost;
+	}
+
+	public void testFasterPAMCostIsNotWorseThanPAM() throws Exception {
+		for (int numClusters : new int[] { 3, 8 }) {
+			KMedoids pam = cluster(numClusters, false);
+			KMedoids fasterPAM = cluster(numClusters, true);
+
+			double pamCost = cost(pam.getDistances(), pam.medoidIndices);
+			double fasterPAMCost = cost(fasterPAM.getDistances(), fasterPAM.medoidIndices);
+			assertEquals(fasterPAMCost, fasterPAM.getConfigurationCost(), 1e-9);
+			assertTrue(numClusters + " clusters: FasterPAM " + fasterPAMCost + ", PAM " + pamCost,
+					fasterPAMCost <= pamCost + 1e-9);
+		}
+	}
+
+	public void testPAMIsReproducible() throws Exception {
+		KMedoids first = cluster(8, false);
+		KMedoids second = cluster(8, false);
+
+		assertTrue(Arrays.equals(first.medoidIndices, second.medoidIndices));
+		assertEquals(first.getConfigurationCost(), second.getConfigurationCost(), 0);
+	}
+
+	public void testFasterPAMReachesLocalOptimum() throws Exception {
+		KMedoids fasterPAM = cluster(8, true);
+		double[][] distances = fasterPAM.getDistances();
+		int[] medoids = fasterPAM.medoidIndices.clone();
+		double cost = fasterPAM.getConfigurationCost();
+
+		for (int k = 0; k < medoids.length; k++) {
+			int medoid = medoids[k];
+			for (int i = 0; i < NUM_BAGS; i++) {
+				if (fasterPAM.isMedoid(i))
+					continue;
+				medoids[k] = i;
+				assertTrue("Swapping medoid " + medoid + " with " + i + " improves the cost",
+						cost(distances, medoids) >= cost - 1e-9);
+			}
+			medoids[k] = medoid;
+		}
+	}
+}
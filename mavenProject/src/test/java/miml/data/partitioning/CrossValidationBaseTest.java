@@ -0,0 +1,61 @@
+/*    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 2 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program; if not, write to the Free Software
+ *    Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package miml.data.partitioning;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the train and test indices built by
+ * {@link CrossValidationBase#foldsToRounds(int[][])}.
+ *
+ * @author Eva Gibaja
+ * @version 20261019
+ */
+public class CrossValidationBaseTest extends TestCase {
+
+	public void testFoldsToRounds() {
+		int[][] folds = { { 4, 0, 7 }, { 2, 5 }, { 1, 6, 3 } };
+		int[][][] rounds = CrossValidationBase.foldsToRounds(folds);
+
+		assertEquals(3, rounds.length);
+		assertTrue(Arrays.equals(new int[] { 2, 5, 1, 6, 3 }, rounds[0][0]));
+		assertTrue(Arrays.equals(new int[] { 4, 0, 7 }, rounds[0][1]));
+		assertTrue(Arrays.equals(new int[] { 4, 0, 7, 1, 6, 3 }, rounds[1][0]));
+		assertTrue(Arrays.equals(new int[] { 2, 5 }, rounds[1][1]));
+		assertTrue(Arrays.equals(new int[] { 4, 0, 7, 2, 5 }, rounds[2][0]));
+		assertTrue(Arrays.equals(new int[] { 1, 6, 3 }, rounds[2][1]));
+	}
+
+	public void testRoundsDoNotShareFolds() {
+		int[][] folds = { { 0, 1 }, { 2, 3 } };
+		int[][][] rounds = CrossValidationBase.foldsToRounds(folds);
+
+		rounds[0][1][0] = 9;
+		rounds[1][0][1] = 9;
+		assertTrue(Arrays.equals(new int[] { 0, 1 }, folds[0]));
+	}
+
+	public void testEmptyFold() {
+		int[][] folds = { { 0, 1, 2 }, {} };
+		int[][][] rounds = CrossValidationBase.foldsToRounds(folds);
+
+		assertEquals(0, rounds[0][0].length);
+		assertTrue(Arrays.equals(new int[] { 0, 1, 2 }, rounds[1][0]));
+		assertEquals(0, rounds[1][1].length);
+	}
+}
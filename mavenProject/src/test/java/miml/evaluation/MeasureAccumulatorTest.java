@@ -0,0 +1,212 @@
+/*    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 2 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program; if not, write to the Free Software
+ *    Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package miml.evaluation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import mulan.classifier.MultiLabelOutput;
+import mulan.evaluation.GroundTruth;
+import mulan.evaluation.measure.AveragePrecision;
+import mulan.evaluation.measure.Coverage;
+import mulan.evaluation.measure.HammingLoss;
+import mulan.evaluation.measure.MacroAverageMeasure;
+import mulan.evaluation.measure.MacroFMeasure;
+import mulan.evaluation.measure.MacroPrecision;
+import mulan.evaluation.measure.MacroRecall;
+import mulan.evaluation.measure.Measure;
+import mulan.evaluation.measure.MicroFMeasure;
+import mulan.evaluation.measure.MicroPrecision;
+import mulan.evaluation.measure.MicroRecall;
+import mulan.evaluation.measure.OneError;
+import mulan.evaluation.measure.RankingLoss;
+import mulan.evaluation.measure.SubsetAccuracy;
+
+/**
+ * Tests that {@link MeasureAccumulator} computes the same values as mulan's
+ * measures, also when its measures are updated as mulan measures, and that
+ * merging accumulators does not depend on the order.
+ *
+ * @author Eva Gibaja
+ * @version 20261019
+ */
+public class MeasureAccumulatorTest extends TestCase {
+
+	/** The number of labels of the random predictions. */
+	private static final int NUM_LABELS = 7;
+
+	/** The number of random predictions. */
+	private static final int NUM_BAGS = 300;
+
+	/** The random predictions. */
+	private MultiLabelOutput[] outputs;
+
+	/** The true labels of each prediction. */
+	private boolean[][] truths;
+
+	@Override
+	protected void setUp() {
+		Random random = new Random(1);
+		outputs = new MultiLabelOutput[NUM_BAGS];
+		truths = new boolean[NUM_BAGS][NUM_LABELS];
+		for (int b = 0; b < NUM_BAGS; b++) {
+			boolean[] bipartition = new boolean[NUM_LABELS];
+			double[] confidences = new double[NUM_LABELS];
+			for (int j = 0; j < NUM_LABELS; j++) {
+				confidences[j] = random.nextDouble();
+				bipartition[j] = confidences[j] > 0.6;
+				// Some bags have no relevant labels
+				truths[b][j] = b % 10 != 0 && random.nextDouble() < 0.3;
+			}
+			outputs[b] = new MultiLabelOutput(bipartition, confidences);
+		}
+	}
+
+	/**
+	 * Fills an accumulator with some of the predictions.
+	 *
+	 * @param from The first prediction.
+	 * @param to   The prediction after the last one.
+	 * @return The accumulator.
+	 */
+	private MeasureAccumulator accumulate(int from, int to) {
+		MeasureAccumulator accumulator = new MeasureAccumulator(NUM_LABELS, outputs[0]);
+		for (int b = from; b < to; b++)
+			accumulator.update(outputs[b].getBipartition(), outputs[b].getRanking(), truths[b]);
+		return accumulator;
+	}
+
+	/**
+	 * Checks that two lists of measures have the same names and values.
+	 *
+	 * @param expected  The expected measures.
+	 * @param actual    The actual measures.
+	 * @param tolerance The allowed difference between values.
+	 */
+	private static void assertSameMeasures(List<Measure> expected, List<Measure> actual, double tolerance) {
+		assertEquals(expected.size(), actual.size());
+		for (int m = 0; m < expected.size(); m++) {
+			Measure e = expected.get(m);
+			Measure a = actual.get(m);
+			assertEquals(e.getName(), a.getName());
+			assertEquals(e.getName(), e.getValue(), a.getValue(), tolerance);
+			assertEquals(e.getName(), e instanceof MacroAverageMeasure, a instanceof MacroAverageMeasure);
+			if (e instanceof MacroAverageMeasure) {
+				for (int j = 0; j < NUM_LABELS; j++)
+					assertEquals(e.getName() + " of label " + j, ((MacroAverageMeasure) e).getValue(j),
+							((MacroAverageMeasure) a).getValue(j), tolerance);
+			}
+		}
+	}
+
+	/**
+	 * Creates the mulan measures computed by an accumulator.
+	 *
+	 * @return The list of measures.
+	 */
+	private static List<Measure> mulanMeasures() {
+		List<Measure> mulan = new ArrayList<Measure>();
+		mulan.add(new HammingLoss());
+		mulan.add(new SubsetAccuracy());
+		mulan.add(new MicroPrecision(NUM_LABELS));
+		mulan.add(new MicroRecall(NUM_LABELS));
+		mulan.add(new MicroFMeasure(NUM_LABELS));
+		mulan.add(new MacroPrecision(NUM_LABELS));
+		mulan.add(new MacroRecall(NUM_LABELS));
+		mulan.add(new MacroFMeasure(NUM_LABELS));
+		mulan.add(new AveragePrecision());
+		mulan.add(new Coverage());
+		mulan.add(new OneError());
+		mulan.add(new RankingLoss());
+		return mulan;
+	}
+
+	/**
+	 * Updates measures with some of the predictions.
+	 *
+	 * @param measures The measures.
+	 * @param from     The first prediction.
+	 * @param to       The prediction after the last one.
+	 */
+	private void update(List<Measure> measures, int from, int to) {
+		for (int b = from; b < to; b++) {
+			GroundTruth truth = new GroundTruth(truths[b]);
+			for (Measure m : measures)
+				m.update(outputs[b], truth);
+		}
+	}
+
+	public void testSameValuesAsMulan() throws Exception {
+		List<Measure> mulan = mulanMeasures();
+		update(mulan, 0, NUM_BAGS);
+
+		assertSameMeasures(mulan, accumulate(0, NUM_BAGS).getMeasures(), 1e-12);
+	}
+
+	public void testUpdateAsMulanMeasures() throws Exception {
+		List<Measure> mulan = mulanMeasures();
+		update(mulan, 0, NUM_BAGS);
+
+		List<Measure> accumulated = accumulate(0, 100).getMeasures();
+		List<Measure> copies = new ArrayList<Measure>();
+		for (Measure m : accumulated)
+			copies.add(m.makeCopy());
+		update(accumulated, 100, NUM_BAGS);
+
+		assertSameMeasures(mulan, accumulated, 1e-12);
+		// Updating the measures does not change their copies
+		assertSameMeasures(accumulate(0, 100).getMeasures(), copies, 0);
+	}
+
+	public void testMergeIsAssociative() {
+		MeasureAccumulator whole = accumulate(0, NUM_BAGS);
+
+		MeasureAccumulator left = accumulate(0, 100);
+		left.merge(accumulate(100, 170));
+		left.merge(accumulate(170, NUM_BAGS));
+
+		MeasureAccumulator right = accumulate(100, 170);
+		right.merge(accumulate(170, NUM_BAGS));
+		MeasureAccumulator first = accumulate(0, 100);
+		first.merge(right);
+
+		assertEquals(NUM_BAGS, left.getNumBags());
+		assertEquals(NUM_BAGS, first.getNumBags());
+		assertSameMeasures(whole.getMeasures(), left.getMeasures(), 1e-12);
+		assertSameMeasures(whole.getMeasures(), first.getMeasures(), 1e-12);
+	}
+
+	public void testMergeOfDifferentMeasuresFails() {
+		MeasureAccumulator bipartitions = new MeasureAccumulator(NUM_LABELS, true, false);
+		try {
+			bipartitions.merge(new MeasureAccumulator(NUM_LABELS, true, true));
+			fail("Accumulators of different measures were merged.");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	public void testResetClearsValues() {
+		for (Measure m : accumulate(0, NUM_BAGS).getMeasures()) {
+			m.reset();
+			assertTrue(m.getName(), Double.isNaN(m.getValue()));
+			if (m instanceof MacroAverageMeasure)
+				assertTrue(m.getName(), Double.isNaN(((MacroAverageMeasure) m).getValue(0)));
+		}
+	}
+}